@@ -0,0 +1,230 @@
+package com.swifteats.driver.cache;
+
+import com.swifteats.driver.dto.LocationDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-local cache of current driver locations in front of Redis.
+ *
+ * <p>The cache is a fixed-size, direct-mapped table indexed by a hash of the
+ * driver ID: lookups are one array read and never allocate, and memory is
+ * bounded by the table size. A colliding driver simply replaces the previous
+ * entry. Entries expire after a short TTL.
+ *
+ * <p>Replicas stay coherent through Redis pub/sub: every location ingested on
+ * this instance is announced on {@link #INVALIDATION_CHANNEL}, and the other
+ * instances drop their copy. Announcements are batched per flush tick, so a
+ * replica may serve a location that is at most one tick plus delivery time
+ * old; the TTL bounds staleness if a message is lost.
+ *
+ * <p>The same announcements tell the {@link RecentTrackCache} that another
+ * instance ingested a point of the driver, so its local buffer has a gap and
+ * is dropped. They are therefore sent whenever either cache is enabled.
+ */
+@Component
+@Slf4j
+public class LocationNearCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "driver:location:invalidate";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RecentTrackCache recentTracks;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final AtomicReferenceArray<Entry> table;
+    private final int mask;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<Long> pendingInvalidations = ConcurrentHashMap.newKeySet();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter remoteInvalidationCounter;
+
+    public LocationNearCache(
+            StringRedisTemplate stringRedisTemplate,
+            RecentTrackCache recentTracks,
+            MeterRegistry meterRegistry,
+            @Value("${driver.location.near-cache.enabled:true}") boolean enabled,
+            @Value("${driver.location.near-cache.size:65536}") int size,
+            @Value("${driver.location.near-cache.ttl-ms:2000}") long ttlMs) {
+        this(stringRedisTemplate, recentTracks, meterRegistry, enabled, size, ttlMs, System::nanoTime);
+    }
+
+    LocationNearCache(StringRedisTemplate stringRedisTemplate, RecentTrackCache recentTracks,
+            MeterRegistry meterRegistry, boolean enabled, int size, long ttlMs, LongSupplier clock) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.recentTracks = recentTracks;
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.clock = clock;
+
+        int capacity = Integer.highestOneBit(Math.max(16, size - 1) << 1);
+        this.table = new AtomicReferenceArray<>(enabled ? capacity : 0);
+        this.mask = capacity - 1;
+
+        this.hitCounter = Counter.builder("driver.location.near_cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("driver.location.near_cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.remoteInvalidationCounter = Counter.builder("driver.location.near_cache.invalidations")
+                .description("Entries dropped because another instance ingested a newer location")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached location of the driver, or {@code null} when absent or expired.
+     */
+    public LocationDTO get(long driverId) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = table.get(slot(driverId));
+        if (entry != null && entry.driverId == driverId && clock.getAsLong() - entry.expiresAtNanos < 0) {
+            hitCounter.increment();
+            return entry.location;
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * Cache a location read from Redis or the database. An entry with a newer
+     * timestamp for the same driver is kept.
+     */
+    public void put(long driverId, LocationDTO location) {
+        if (!enabled || location == null) {
+            return;
+        }
+        int slot = slot(driverId);
+        Entry fresh = new Entry(driverId, location, clock.getAsLong() + ttlNanos);
+        while (true) {
+            Entry current = table.get(slot);
+            if (current != null && current.driverId == driverId && isNewer(current.location, location)) {
+                return;
+            }
+            if (table.compareAndSet(slot, current, fresh)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Cache a location ingested by this instance and announce it so other
+     * instances drop their copy.
+     */
+    public void update(long driverId, LocationDTO location) {
+        put(driverId, location);
+        if (enabled || recentTracks.isEnabled()) {
+            pendingInvalidations.add(driverId);
+        }
+    }
+
+    public void invalidate(long driverId) {
+        if (!enabled) {
+            return;
+        }
+        int slot = slot(driverId);
+        Entry current = table.get(slot);
+        if (current != null && current.driverId == driverId) {
+            table.compareAndSet(slot, current, null);
+        }
+    }
+
+    /**
+     * Publish the drivers updated since the last tick as one message.
+     */
+    @Scheduled(fixedDelayString = "${driver.location.near-cache.invalidation-interval-ms:100}")
+    public void publishInvalidations() {
+        if (pendingInvalidations.isEmpty()) {
+            return;
+        }
+
+        List<Long> driverIds = new ArrayList<>(pendingInvalidations.size());
+        for (Long driverId : pendingInvalidations) {
+            pendingInvalidations.remove(driverId);
+            driverIds.add(driverId);
+        }
+
+        StringBuilder payload = new StringBuilder(instanceId.length() + driverIds.size() * 8).append(instanceId);
+        for (Long driverId : driverIds) {
+            payload.append(',').append(driverId);
+        }
+
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, payload.toString());
+        } catch (DataAccessException e) {
+            // Remote copies expire with the TTL
+            log.warn("Failed to publish near-cache invalidation for {} drivers: {}", driverIds.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Invalidation message from any instance: {@code instanceId,driverId,driverId,...}.
+     * Messages sent by this instance are ignored.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        int start = payload.indexOf(',');
+        if (start < 0 || start == instanceId.length() && payload.startsWith(instanceId)) {
+            return;
+        }
+
+        int position = start + 1;
+        while (position < payload.length()) {
+            int end = payload.indexOf(',', position);
+            if (end < 0) {
+                end = payload.length();
+            }
+            try {
+                long driverId = Long.parseLong(payload, position, end, 10);
+                invalidate(driverId);
+                recentTracks.forget(driverId);
+                remoteInvalidationCounter.increment();
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed near-cache invalidation: {}", payload);
+                return;
+            }
+            position = end + 1;
+        }
+    }
+
+    private int slot(long driverId) {
+        // Fibonacci hashing spreads sequential IDs over the whole table
+        return (int) ((driverId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private static boolean isNewer(LocationDTO current, LocationDTO candidate) {
+        LocalDateTime currentTimestamp = current.getTimestamp();
+        LocalDateTime candidateTimestamp = candidate.getTimestamp();
+        return currentTimestamp != null && candidateTimestamp != null && currentTimestamp.isAfter(candidateTimestamp);
+    }
+
+    private record Entry(long driverId, LocationDTO location, long expiresAtNanos) {
+    }
+}
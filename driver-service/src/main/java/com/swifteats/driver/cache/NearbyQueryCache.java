@@ -0,0 +1,240 @@
+package com.swifteats.driver.cache;
+
+import com.swifteats.driver.dto.DriverDTO;
+import com.swifteats.driver.spatial.GeoUtils;
+import com.swifteats.driver.spatial.NearbyDriver;
+import com.swifteats.driver.spatial.NearbyDriverSearch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of nearby-driver searches, keyed by the grid cell of the
+ * query point, the radius rounded up to a bucket and the current time window.
+ * Customers in the same neighborhood asking within the same window share one
+ * search: it runs once from the cell center with a radius that covers every
+ * query point of the cell, the drivers it finds are loaded once, and each
+ * request then filters that candidate set by its exact point and radius.
+ *
+ * <p>Concurrent requests for a key that is still being computed wait for the
+ * running search instead of starting their own. Results are at most one
+ * {@code window-ms} old, and the returned DTOs are shared by every request of
+ * the window, so callers must not modify them.
+ */
+@Component
+@Slf4j
+public class NearbyQueryCache {
+
+    private final NearbyDriverSearch nearbySearch;
+    private final boolean enabled;
+    private final double cellDegrees;
+    private final double cellHalfDiagonalMeters;
+    private final double radiusStepMeters;
+    private final double maxRadiusMeters;
+    private final long windowMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    private final Map<Key, CompletableFuture<List<Candidate>>> entries = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter coalescedCounter;
+    private final Counter missCounter;
+
+    public NearbyQueryCache(
+            NearbyDriverSearch nearbySearch,
+            MeterRegistry meterRegistry,
+            @Value("${driver.nearby.cache.enabled:true}") boolean enabled,
+            @Value("${driver.nearby.cache.cell-meters:100}") double cellMeters,
+            @Value("${driver.nearby.cache.radius-step-meters:500}") double radiusStepMeters,
+            @Value("${driver.nearby.cache.max-radius-meters:20000}") double maxRadiusMeters,
+            @Value("${driver.nearby.cache.window-ms:1000}") long windowMillis,
+            @Value("${driver.nearby.cache.max-entries:50000}") int maxEntries) {
+        this(nearbySearch, meterRegistry, enabled, cellMeters, radiusStepMeters, maxRadiusMeters, windowMillis,
+                maxEntries, System::currentTimeMillis);
+    }
+
+    NearbyQueryCache(NearbyDriverSearch nearbySearch, MeterRegistry meterRegistry, boolean enabled,
+            double cellMeters, double radiusStepMeters, double maxRadiusMeters, long windowMillis, int maxEntries,
+            LongSupplier clock) {
+        if (cellMeters <= 0 || radiusStepMeters <= 0 || windowMillis <= 0) {
+            throw new IllegalArgumentException("Cell size, radius step and window must be positive");
+        }
+        this.nearbySearch = nearbySearch;
+        this.enabled = enabled;
+        // Cells are square in degrees, so they are never wider than cellMeters
+        this.cellDegrees = cellMeters / GeoUtils.METERS_PER_DEGREE;
+        this.cellHalfDiagonalMeters = cellMeters * Math.sqrt(2) / 2;
+        this.radiusStepMeters = radiusStepMeters;
+        this.maxRadiusMeters = maxRadiusMeters;
+        this.windowMillis = windowMillis;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+
+        Gauge.builder("driver.nearby.cache.entries", entries, Map::size)
+                .description("Cached nearby searches")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("driver.nearby.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("driver.nearby.cache.requests")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("driver.nearby.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("driver.nearby.cache.hit_ratio", this, NearbyQueryCache::hitRatio)
+                .description("Share of nearby searches answered without running a search")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Available drivers within {@code radiusInMeters} of a point, nearest first.
+     *
+     * @param loadDrivers loads the drivers of search hits by id; hits it returns
+     *                    no driver for are left out
+     */
+    public List<DriverDTO> findAvailableNearby(double latitude, double longitude, double radiusInMeters,
+            Function<List<NearbyDriver>, Map<Long, DriverDTO>> loadDrivers) {
+        if (!enabled || radiusInMeters > maxRadiusMeters) {
+            return load(nearbySearch.findAvailableNearby(latitude, longitude, radiusInMeters), loadDrivers);
+        }
+
+        int row = (int) Math.floor(latitude / cellDegrees);
+        int column = (int) Math.floor(longitude / cellDegrees);
+        int radiusBucket = (int) Math.ceil(radiusInMeters / radiusStepMeters);
+        Key key = new Key(row, column, radiusBucket, clock.getAsLong() / windowMillis);
+
+        CompletableFuture<List<Candidate>> candidates = entries.get(key);
+        if (candidates == null) {
+            if (entries.size() >= maxEntries) {
+                missCounter.increment();
+                return load(nearbySearch.findAvailableNearby(latitude, longitude, radiusInMeters), loadDrivers);
+            }
+            CompletableFuture<List<Candidate>> created = new CompletableFuture<>();
+            candidates = entries.putIfAbsent(key, created);
+            if (candidates == null) {
+                missCounter.increment();
+                candidates = created;
+                search(key, radiusBucket * radiusStepMeters, loadDrivers, created);
+            } else {
+                countHit(candidates);
+            }
+        } else {
+            countHit(candidates);
+        }
+
+        return filter(join(candidates), latitude, longitude, radiusInMeters);
+    }
+
+    /**
+     * Drop the entries of past windows.
+     */
+    @Scheduled(fixedDelayString = "${driver.nearby.cache.window-ms:1000}")
+    public void evictExpired() {
+        long window = clock.getAsLong() / windowMillis;
+        entries.keySet().removeIf(key -> key.window() < window);
+    }
+
+    private void search(Key key, double bucketRadiusMeters,
+            Function<List<NearbyDriver>, Map<Long, DriverDTO>> loadDrivers, CompletableFuture<List<Candidate>> result) {
+        double centerLatitude = (key.row() + 0.5) * cellDegrees;
+        double centerLongitude = (key.column() + 0.5) * cellDegrees;
+        try {
+            // Widened by the half diagonal, but only ever filtered down to the bucket radius
+            List<NearbyDriver> hits = nearbySearch.findAvailableNearby(centerLatitude, centerLongitude,
+                    bucketRadiusMeters + cellHalfDiagonalMeters, bucketRadiusMeters);
+            Map<Long, DriverDTO> drivers = hits.isEmpty() ? Map.of() : loadDrivers.apply(hits);
+            List<Candidate> candidates = new ArrayList<>(drivers.size());
+            for (NearbyDriver hit : hits) {
+                DriverDTO driver = drivers.get(hit.driverId());
+                if (driver != null) {
+                    candidates.add(new Candidate(hit, driver));
+                }
+            }
+            result.complete(candidates);
+        } catch (RuntimeException e) {
+            // Waiting requests fail with this search, later ones retry
+            entries.remove(key, result);
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void countHit(CompletableFuture<List<Candidate>> candidates) {
+        (candidates.isDone() ? hitCounter : coalescedCounter).increment();
+    }
+
+    private double hitRatio() {
+        double hits = hitCounter.count() + coalescedCounter.count();
+        double total = hits + missCounter.count();
+        return total > 0 ? hits / total : 0;
+    }
+
+    private static List<Candidate> join(CompletableFuture<List<Candidate>> candidates) {
+        try {
+            return candidates.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static List<DriverDTO> load(List<NearbyDriver> hits,
+            Function<List<NearbyDriver>, Map<Long, DriverDTO>> loadDrivers) {
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, DriverDTO> drivers = loadDrivers.apply(hits);
+        List<DriverDTO> nearby = new ArrayList<>(drivers.size());
+        for (NearbyDriver hit : hits) {
+            DriverDTO driver = drivers.get(hit.driverId());
+            if (driver != null) {
+                nearby.add(driver);
+            }
+        }
+        return nearby;
+    }
+
+    private static List<DriverDTO> filter(List<Candidate> candidates, double latitude, double longitude,
+            double radiusInMeters) {
+        List<Match> matches = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            double distance = GeoUtils.distanceMeters(latitude, longitude, candidate.hit().latitude(),
+                    candidate.hit().longitude());
+            if (distance <= radiusInMeters) {
+                matches.add(new Match(candidate.driver(), distance));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::distanceMeters));
+        List<DriverDTO> nearby = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            nearby.add(match.driver());
+        }
+        return nearby;
+    }
+
+    private record Key(int row, int column, int radiusBucket, long window) {
+    }
+
+    private record Candidate(NearbyDriver hit, DriverDTO driver) {
+    }
+
+    private record Match(DriverDTO driver, double distanceMeters) {
+    }
+}
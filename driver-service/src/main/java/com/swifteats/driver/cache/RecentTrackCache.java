@@ -0,0 +1,233 @@
+package com.swifteats.driver.cache;
+
+import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.model.LocationSample;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The last points of every driver, kept in a fixed-capacity ring buffer of
+ * primitive arrays per driver. A history read whose start falls inside the
+ * buffered window is answered from memory; anything older goes to the
+ * database.
+ *
+ * <p>A buffer only covers the time since its oldest point: until it wraps, that
+ * is the first point this instance ingested for the driver, so history from
+ * before a restart is never served from memory. A point older than the newest
+ * buffered one restarts the buffer, keeping it in timestamp order. When another
+ * instance ingests a point of the driver, {@link LocationNearCache} drops the
+ * buffer, so a buffer only ever holds an unbroken run of the driver's points
+ * (up to one invalidation tick behind).
+ */
+@Component
+@Slf4j
+public class RecentTrackCache {
+
+    private final boolean enabled;
+    private final int capacity;
+    private final int maxDrivers;
+    private final long idleNanos;
+    private final LongSupplier clock;
+
+    private final Map<Long, Track> tracks = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public RecentTrackCache(
+            MeterRegistry meterRegistry,
+            @Value("${driver.location.recent-track.enabled:true}") boolean enabled,
+            @Value("${driver.location.recent-track.capacity:64}") int capacity,
+            @Value("${driver.location.recent-track.max-drivers:20000}") int maxDrivers,
+            @Value("${driver.location.recent-track.idle-minutes:30}") long idleMinutes) {
+        this(meterRegistry, enabled, capacity, maxDrivers, idleMinutes, System::nanoTime);
+    }
+
+    RecentTrackCache(MeterRegistry meterRegistry, boolean enabled, int capacity, int maxDrivers, long idleMinutes,
+            LongSupplier clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.maxDrivers = maxDrivers;
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        this.clock = clock;
+
+        Gauge.builder("driver.location.recent_track.drivers", tracks, Map::size)
+                .description("Drivers with a buffered recent track")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("driver.location.recent_track.reads")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("driver.location.recent_track.reads")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Append an accepted point to the driver's buffer.
+     */
+    public void record(LocationSample sample) {
+        if (!enabled) {
+            return;
+        }
+        Track track = tracks.get(sample.driverId());
+        if (track == null) {
+            if (tracks.size() >= maxDrivers) {
+                return;
+            }
+            track = tracks.computeIfAbsent(sample.driverId(), id -> new Track(capacity));
+        }
+        track.add(sample, clock.getAsLong());
+    }
+
+    /**
+     * Points of a driver at or after {@code since}, oldest first, or {@code null}
+     * if the buffer does not reach back that far.
+     */
+    public List<LocationDTO> findSince(long driverId, LocalDateTime since) {
+        Track track = enabled ? tracks.get(driverId) : null;
+        List<LocationDTO> points = track != null ? track.since(driverId, toEpochMicros(since)) : null;
+        (points != null ? hitCounter : missCounter).increment();
+        return points;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void forget(long driverId) {
+        tracks.remove(driverId);
+    }
+
+    /**
+     * Drop the buffers of drivers that stopped sending, so memory follows the
+     * active fleet.
+     */
+    @Scheduled(fixedDelayString = "${driver.location.recent-track.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        int before = tracks.size();
+        tracks.values().removeIf(track -> track.idleFor(now) > idleNanos);
+        if (tracks.size() < before) {
+            log.debug("Evicted {} idle recent tracks", before - tracks.size());
+        }
+    }
+
+    private static long toEpochMicros(LocalDateTime timestamp) {
+        Instant instant = timestamp.toInstant(ZoneOffset.UTC);
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromEpochMicros(long epochMicros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000),
+                (int) Math.floorMod(epochMicros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Ring buffer of one driver's points. Optional values are stored as NaN.
+     */
+    private static final class Track {
+        private final long[] times;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final double[] headings;
+        private final double[] speeds;
+        private final double[] accuracies;
+        private int head;
+        private int count;
+        private long lastRecordedNanos;
+
+        Track(int capacity) {
+            times = new long[capacity];
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            headings = new double[capacity];
+            speeds = new double[capacity];
+            accuracies = new double[capacity];
+        }
+
+        synchronized void add(LocationSample sample, long now) {
+            long time = toEpochMicros(sample.timestamp());
+            if (count > 0 && time < times[index(count - 1)]) {
+                count = 0;
+            }
+
+            times[head] = time;
+            latitudes[head] = sample.latitude();
+            longitudes[head] = sample.longitude();
+            headings[head] = toPrimitive(sample.heading());
+            speeds[head] = toPrimitive(sample.speed());
+            accuracies[head] = toPrimitive(sample.accuracy());
+            head = (head + 1) % times.length;
+            count = Math.min(count + 1, times.length);
+            lastRecordedNanos = now;
+        }
+
+        synchronized List<LocationDTO> since(long driverId, long sinceMicros) {
+            if (count == 0 || sinceMicros < times[index(0)]) {
+                return null;
+            }
+
+            // First buffered point at or after the start
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (times[index(middle)] < sinceMicros) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            List<LocationDTO> points = new ArrayList<>(count - low);
+            for (int i = low; i < count; i++) {
+                int slot = index(i);
+                points.add(LocationDTO.builder()
+                        .driverId(driverId)
+                        .latitude(latitudes[slot])
+                        .longitude(longitudes[slot])
+                        .heading(toNullable(headings[slot]))
+                        .speed(toNullable(speeds[slot]))
+                        .accuracy(toNullable(accuracies[slot]))
+                        .timestamp(fromEpochMicros(times[slot]))
+                        .build());
+            }
+            return points;
+        }
+
+        synchronized long idleFor(long now) {
+            return now - lastRecordedNanos;
+        }
+
+        // Slot of the i-th oldest buffered point
+        private int index(int i) {
+            return Math.floorMod(head - count + i, times.length);
+        }
+
+        private static double toPrimitive(Double value) {
+            return value != null ? value : Double.NaN;
+        }
+
+        private static Double toNullable(double value) {
+            return Double.isNaN(value) ? null : value;
+        }
+    }
+}
@@ -14,6 +14,7 @@ public class RabbitMQConfig {
     // Queue names
     public static final String DRIVER_ASSIGNMENT_QUEUE = "driver.assignment";
     public static final String DRIVER_LOCATION_QUEUE = "driver.location";
+    public static final String DRIVER_GEOFENCE_EVENT_QUEUE = "driver.geofence.event";
     public static final String ORDER_STATUS_UPDATE_QUEUE = "order.status.update";
 
     // Exchange names
@@ -23,6 +24,7 @@ public class RabbitMQConfig {
     // Routing keys
     public static final String DRIVER_ASSIGNMENT_KEY = "driver.assignment";
     public static final String DRIVER_LOCATION_KEY = "driver.location";
+    public static final String DRIVER_GEOFENCE_EVENT_KEY = "driver.geofence.event";
     public static final String ORDER_STATUS_UPDATE_KEY = "order.status.update";
 
     @Bean
@@ -35,6 +37,11 @@ public class RabbitMQConfig {
         return new Queue(DRIVER_LOCATION_QUEUE, true);
     }
 
+    @Bean
+    public Queue driverGeofenceEventQueue() {
+        return new Queue(DRIVER_GEOFENCE_EVENT_QUEUE, true);
+    }
+
     @Bean
     public Queue orderStatusUpdateQueue() {
         return new Queue(ORDER_STATUS_UPDATE_QUEUE, true);
@@ -66,6 +73,14 @@ public class RabbitMQConfig {
                 .with(DRIVER_LOCATION_KEY);
     }
 
+    @Bean
+    public Binding driverGeofenceEventBinding() {
+        return BindingBuilder
+                .bind(driverGeofenceEventQueue())
+                .to(driverExchange())
+                .with(DRIVER_GEOFENCE_EVENT_KEY);
+    }
+
     @Bean
     public Binding orderStatusUpdateBinding() {
         return BindingBuilder
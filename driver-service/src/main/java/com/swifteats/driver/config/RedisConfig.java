@@ -3,17 +3,26 @@ package com.swifteats.driver.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.swifteats.driver.cache.LocationNearCache;
 import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.geofence.GeofenceService;
+import com.swifteats.driver.spatial.DriverSpatialIndex;
+import com.swifteats.driver.spatial.NearbyDriverSearch;
+import com.swifteats.driver.spatial.RedisGeoNearbyDriverSearch;
 
 @Configuration
 public class RedisConfig {
@@ -46,6 +55,11 @@ public class RedisConfig {
         return template;
     }
 
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        return new StringRedisTemplate(redisConnectionFactory);
+    }
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
             ObjectMapper objectMapper) {
@@ -59,4 +73,36 @@ public class RedisConfig {
 
         return template;
     }
+
+    /**
+     * Delivers near-cache invalidations and geofence changes published by other instances.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+            LocationNearCache nearCache, GeofenceService geofenceService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(nearCache, new ChannelTopic(LocationNearCache.INVALIDATION_CHANNEL));
+        container.addMessageListener(geofenceService, new ChannelTopic(GeofenceService.CHANGES_CHANNEL));
+        return container;
+    }
+
+    /**
+     * Backend for nearby-driver queries, selected with {@code driver.nearby.backend}:
+     * {@code grid} (default) answers from the in-process spatial index,
+     * {@code redis-geo} from a geo set shared by all replicas.
+     */
+    @Bean
+    @Primary
+    public NearbyDriverSearch nearbyDriverSearch(
+            @Value("${driver.nearby.backend:grid}") String backend,
+            @Value("${driver.nearby.redis-geo.max-results:500}") int maxResults,
+            @Value("${driver.nearby.stale-after-seconds:120}") long staleAfterSeconds,
+            DriverSpatialIndex spatialIndex,
+            StringRedisTemplate stringRedisTemplate) {
+        if ("redis-geo".equalsIgnoreCase(backend)) {
+            return new RedisGeoNearbyDriverSearch(stringRedisTemplate, maxResults, staleAfterSeconds);
+        }
+        return spatialIndex;
+    }
 }
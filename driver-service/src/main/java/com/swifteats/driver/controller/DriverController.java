@@ -1,19 +1,36 @@
 package com.swifteats.driver.controller;
 
+import com.swifteats.driver.dto.BatchLocationUpdateDTO;
+import com.swifteats.driver.dto.BatchLocationUpdateResultDTO;
 import com.swifteats.driver.dto.DriverDTO;
 import com.swifteats.driver.dto.DriverStatusUpdateDTO;
+import com.swifteats.driver.dto.EtaDTO;
+import com.swifteats.driver.dto.GeofenceDTO;
 import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.dto.LocationHistoryPageDTO;
+import com.swifteats.driver.dto.LocationHistorySamplingDTO;
 import com.swifteats.driver.dto.LocationUpdateDTO;
+import com.swifteats.driver.dto.NearestDriverDTO;
+import com.swifteats.driver.dto.SupplyDensityDTO;
+import com.swifteats.driver.geofence.Geofence;
+import com.swifteats.driver.geofence.GeofenceService;
+import com.swifteats.driver.service.DriverImportService;
 import com.swifteats.driver.service.DriverService;
+import com.swifteats.driver.service.LocationHistoryExportService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/drivers")
@@ -21,7 +38,15 @@ import java.util.List;
 @Slf4j
 public class DriverController {
 
+    private static final int MAX_BULK_LOCATION_IDS = 1000;
+    private static final int MAX_NEAREST_DRIVERS = 100;
+    private static final double MAX_SEARCH_RADIUS_METERS = 100_000;
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
     private final DriverService driverService;
+    private final LocationHistoryExportService historyExportService;
+    private final GeofenceService geofenceService;
+    private final DriverImportService importService;
 
     @PostMapping
     public ResponseEntity<DriverDTO> createDriver(@Valid @RequestBody DriverDTO driverDTO) {
@@ -30,11 +55,31 @@ public class DriverController {
         return new ResponseEntity<>(createdDriver, HttpStatus.CREATED);
     }
 
+    /**
+     * Create drivers from an NDJSON or CSV upload. The body is read while the
+     * per-row results are streamed back, one NDJSON line per row.
+     */
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "text/csv"}, produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> importDrivers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        DriverImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+                ? DriverImportService.Format.CSV
+                : DriverImportService.Format.NDJSON;
+        log.info("Importing drivers from {} upload", format);
+
+        StreamingResponseBody results = outputStream -> importService.importDrivers(body, format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(results);
+    }
+
     @PostMapping("/location/batch")
-    public ResponseEntity<Void> updateDriverLocationBatch(@Valid @RequestBody List<LocationUpdateDTO> locationUpdates) {
-        log.info("Received batch location update for {} drivers", locationUpdates.size());
-        locationUpdates.forEach(driverService::updateDriverLocation);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<BatchLocationUpdateResultDTO> updateDriverLocationBatch(
+            @Valid @RequestBody BatchLocationUpdateDTO batchUpdate) {
+        log.info("Received batch location update for {} drivers", batchUpdate.getUpdates().size());
+        BatchLocationUpdateResultDTO result = driverService.updateDriverLocationBatch(batchUpdate.getUpdates());
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping
@@ -56,25 +101,76 @@ public class DriverController {
     public ResponseEntity<LocationDTO> updateDriverLocation(@Valid @RequestBody LocationUpdateDTO locationUpdate) {
         log.info("Updating location for driver ID: {}", locationUpdate.getDriverId());
         LocationDTO updatedLocation = driverService.updateDriverLocation(locationUpdate);
+        if (updatedLocation == null) {
+            // Dropped by the ingestion filter; the previous location still stands
+            return ResponseEntity.noContent().build();
+        }
         return ResponseEntity.ok(updatedLocation);
     }
 
     @GetMapping("/{id}/location/history")
     public ResponseEntity<List<LocationDTO>> getDriverLocationHistory(
             @PathVariable Long id,
-            @RequestParam(required = false) LocalDateTime since) {
+            @RequestParam(required = false) LocalDateTime since,
+            @RequestParam(required = false) Integer interval,
+            @RequestParam(required = false) Double tolerance,
+            @RequestParam(required = false) Integer maxPoints) {
 
         LocalDateTime startTime = since != null ? since : LocalDateTime.now().minusHours(1);
         log.info("Fetching location history for driver ID: {} since {}", id, startTime);
 
-        List<LocationDTO> locationHistory = driverService.getDriverLocationHistory(id, startTime);
+        LocationHistorySamplingDTO sampling = LocationHistorySamplingDTO.builder()
+                .intervalSeconds(interval)
+                .toleranceMeters(tolerance)
+                .maxPoints(maxPoints)
+                .build();
+        List<LocationDTO> locationHistory = driverService.getDriverLocationHistory(id, startTime, sampling);
         return ResponseEntity.ok(locationHistory);
     }
 
+    @GetMapping("/{id}/location/history/page")
+    public ResponseEntity<LocationHistoryPageDTO> getDriverLocationHistoryPage(
+            @PathVariable Long id,
+            @RequestParam(required = false) LocalDateTime since,
+            @RequestParam(required = false) LocalDateTime until,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int limit) {
+
+        LocalDateTime startTime = since != null ? since : LocalDateTime.now().minusHours(1);
+        LocalDateTime endTime = until != null ? until : LocalDateTime.now();
+        log.info("Fetching location history page for driver ID: {} between {} and {}", id, startTime, endTime);
+
+        try {
+            return ResponseEntity.ok(historyExportService.getHistoryPage(id, startTime, endTime, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected location history page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/{id}/location/history/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportDriverLocationHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) LocalDateTime since,
+            @RequestParam(required = false) LocalDateTime until) {
+
+        LocalDateTime startTime = since != null ? since : LocalDateTime.now().minusHours(24);
+        LocalDateTime endTime = until != null ? until : LocalDateTime.now();
+        log.info("Exporting location history for driver ID: {} between {} and {}", id, startTime, endTime);
+
+        StreamingResponseBody body = outputStream ->
+                historyExportService.exportHistory(id, startTime, endTime, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @GetMapping("/{id}/location/current")
-    public ResponseEntity<LocationDTO> getDriverCurrentLocation(@PathVariable Long id) {
+    public ResponseEntity<LocationDTO> getDriverCurrentLocation(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean predicted) {
         log.info("Fetching current location for driver ID: {}", id);
-        LocationDTO currentLocation = driverService.getDriverCurrentLocation(id);
+        LocationDTO currentLocation = driverService.getDriverCurrentLocation(id, predicted);
 
         if (currentLocation != null) {
             return ResponseEntity.ok(currentLocation);
@@ -83,6 +179,16 @@ public class DriverController {
         }
     }
 
+    @PostMapping("/location/current")
+    public ResponseEntity<Map<Long, LocationDTO>> getDriverCurrentLocations(@RequestBody List<Long> driverIds) {
+        if (driverIds.size() > MAX_BULK_LOCATION_IDS) {
+            log.warn("Rejected bulk current location request for {} drivers", driverIds.size());
+            return ResponseEntity.badRequest().build();
+        }
+        log.info("Fetching current location for {} drivers", driverIds.size());
+        return ResponseEntity.ok(driverService.getDriverCurrentLocations(driverIds));
+    }
+
     @PostMapping("/status")
     public ResponseEntity<DriverDTO> updateDriverStatus(@Valid @RequestBody DriverStatusUpdateDTO statusUpdate) {
         log.info("Updating status for driver ID: {} to {}", statusUpdate.getDriverId(), statusUpdate.getStatus());
@@ -94,10 +200,109 @@ public class DriverController {
     public ResponseEntity<List<DriverDTO>> getNearbyDrivers(
             @RequestParam Double latitude,
             @RequestParam Double longitude,
-            @RequestParam(defaultValue = "5000") Double radius) {
+            @RequestParam(defaultValue = "5000") Double radius,
+            @RequestParam(defaultValue = "false") boolean predicted) {
 
+        if (!isValidRadius(radius)) {
+            return ResponseEntity.badRequest().build();
+        }
         log.info("Finding available drivers near lat: {}, lng: {} within {}m", latitude, longitude, radius);
-        List<DriverDTO> nearbyDrivers = driverService.getAvailableDriversNearby(latitude, longitude, radius);
+        List<DriverDTO> nearbyDrivers = driverService.getAvailableDriversNearby(latitude, longitude, radius,
+                predicted);
         return ResponseEntity.ok(nearbyDrivers);
     }
+
+    @GetMapping("/density")
+    public ResponseEntity<SupplyDensityDTO> getSupplyDensity(
+            @RequestParam String bbox,
+            @RequestParam(required = false) Double resolution) {
+
+        // bbox is minLng,minLat,maxLng,maxLat; resolution is the cell size in degrees
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            double west = Double.parseDouble(parts[0].trim());
+            double south = Double.parseDouble(parts[1].trim());
+            double east = Double.parseDouble(parts[2].trim());
+            double north = Double.parseDouble(parts[3].trim());
+            return ResponseEntity.ok(driverService.getAvailableDriverDensity(south, west, north, east, resolution));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected density request for bbox {}: {}", bbox, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{id}/eta")
+    public ResponseEntity<EtaDTO> getDriverEta(
+            @PathVariable Long id,
+            @RequestParam("lat") Double latitude,
+            @RequestParam("lng") Double longitude) {
+        EtaDTO eta = driverService.getDriverEta(id, latitude, longitude);
+        return eta != null ? ResponseEntity.ok(eta) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/eta")
+    public ResponseEntity<EtaDTO> estimateEta(
+            @RequestParam Double fromLat,
+            @RequestParam Double fromLng,
+            @RequestParam Double toLat,
+            @RequestParam Double toLng) {
+        return ResponseEntity.ok(driverService.estimateEta(fromLat, fromLng, toLat, toLng));
+    }
+
+    @PostMapping("/geofences")
+    public ResponseEntity<GeofenceDTO> registerGeofence(@Valid @RequestBody GeofenceDTO geofenceDTO) {
+        log.info("Registering {} geofence for order {}", geofenceDTO.getType(), geofenceDTO.getOrderId());
+        Geofence fence = geofenceService.register(geofenceDTO.getOrderId(), geofenceDTO.getType(),
+                geofenceDTO.getDriverId(), geofenceDTO.getLatitude(), geofenceDTO.getLongitude(),
+                geofenceDTO.getRadiusMeters());
+        return new ResponseEntity<>(convertToGeofenceDTO(fence), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/geofences/{orderId}")
+    public ResponseEntity<List<GeofenceDTO>> getGeofences(@PathVariable Long orderId) {
+        return ResponseEntity.ok(geofenceService.getFences(orderId).stream()
+                .map(this::convertToGeofenceDTO)
+                .toList());
+    }
+
+    @DeleteMapping("/geofences/{orderId}")
+    public ResponseEntity<Void> removeGeofences(@PathVariable Long orderId) {
+        log.info("Removing geofences of order {}", orderId);
+        return geofenceService.removeOrder(orderId) > 0
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/nearest")
+    public ResponseEntity<List<NearestDriverDTO>> getNearestDrivers(
+            @RequestParam("lat") Double latitude,
+            @RequestParam("lng") Double longitude,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "50000") Double maxRadius) {
+
+        if (k < 1 || k > MAX_NEAREST_DRIVERS || !isValidRadius(maxRadius)) {
+            return ResponseEntity.badRequest().build();
+        }
+        log.info("Finding {} nearest available drivers to lat: {}, lng: {}", k, latitude, longitude);
+        return ResponseEntity.ok(driverService.getNearestAvailableDrivers(latitude, longitude, k, maxRadius));
+    }
+
+    // Also rejects NaN, which fails every comparison
+    private static boolean isValidRadius(double radius) {
+        return radius > 0 && radius <= MAX_SEARCH_RADIUS_METERS;
+    }
+
+    private GeofenceDTO convertToGeofenceDTO(Geofence fence) {
+        return GeofenceDTO.builder()
+                .orderId(fence.orderId())
+                .type(fence.type())
+                .driverId(fence.driverId())
+                .latitude(fence.latitude())
+                .longitude(fence.longitude())
+                .radiusMeters(fence.radiusMeters())
+                .build();
+    }
 }
@@ -1,5 +1,6 @@
 package com.swifteats.driver.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
@@ -8,6 +9,10 @@ import lombok.NoArgsConstructor;
 
 import java.util.List;
 
+/**
+ * Body of {@code POST /location/batch}: either {@code {"updates": [...]}} or,
+ * as accepted before the wrapper was introduced, a bare array of updates.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -15,4 +20,10 @@ public class BatchLocationUpdateDTO {
     @NotEmpty(message = "Location updates cannot be empty")
     @Valid
     private List<LocationUpdateDTO> updates;
+
+    // Only used for JSON arrays; objects still bind through the setters
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static BatchLocationUpdateDTO of(List<LocationUpdateDTO> updates) {
+        return new BatchLocationUpdateDTO(updates);
+    }
 }
@@ -0,0 +1,19 @@
+package com.swifteats.driver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLocationUpdateResultDTO {
+    private int accepted;
+    private int filtered;
+    private int rejected;
+    private List<LocationUpdateResultDTO> results;
+}
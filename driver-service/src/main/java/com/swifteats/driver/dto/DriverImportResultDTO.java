@@ -0,0 +1,30 @@
+package com.swifteats.driver.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DriverImportResultDTO {
+    // Line of the row in the uploaded file, starting at 1
+    private long line;
+
+    private Long driverId;
+
+    private Status status;
+
+    private String error;
+
+    public enum Status {
+        CREATED,
+        // A driver with the same email already exists
+        DUPLICATE,
+        REJECTED
+    }
+}
@@ -0,0 +1,19 @@
+package com.swifteats.driver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EtaDTO {
+    private long etaSeconds;
+
+    // Road distance estimate (straight line times the detour factor)
+    private double distanceMeters;
+
+    private double speedKmh;
+}
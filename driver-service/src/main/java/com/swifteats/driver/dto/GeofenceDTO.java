@@ -0,0 +1,35 @@
+package com.swifteats.driver.dto;
+
+import com.swifteats.driver.geofence.GeofenceType;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeofenceDTO {
+    @NotNull(message = "Order ID is required")
+    private Long orderId;
+
+    @NotNull(message = "Geofence type is required")
+    private GeofenceType type;
+
+    // Only this driver triggers the fence; any driver when absent
+    private Long driverId;
+
+    @NotNull(message = "Latitude is required")
+    private Double latitude;
+
+    @NotNull(message = "Longitude is required")
+    private Double longitude;
+
+    @DecimalMin(value = "10", message = "Radius must be at least 10 meters")
+    @DecimalMax(value = "2000", message = "Radius must be at most 2000 meters")
+    private Double radiusMeters;
+}
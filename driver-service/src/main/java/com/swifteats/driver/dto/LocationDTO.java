@@ -1,5 +1,6 @@
 package com.swifteats.driver.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,6 +16,8 @@ import java.time.LocalDateTime;
 public class LocationDTO {
     private Long id;
 
+    private Long driverId;
+
     @NotNull(message = "Latitude is required")
     private Double latitude;
 
@@ -26,4 +29,14 @@ public class LocationDTO {
     private Double accuracy;
 
     private LocalDateTime timestamp;
+
+    // Set when the position was extrapolated from the fix at timestamp
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean predicted;
+
+    // Used by the JPQL constructor projections in DriverLocationRepository
+    public LocationDTO(Long id, Long driverId, Double latitude, Double longitude, Double heading, Double speed,
+            Double accuracy, LocalDateTime timestamp) {
+        this(id, driverId, latitude, longitude, heading, speed, accuracy, timestamp, null);
+    }
 }
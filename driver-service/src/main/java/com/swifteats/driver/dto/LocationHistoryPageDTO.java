@@ -0,0 +1,19 @@
+package com.swifteats.driver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationHistoryPageDTO {
+    private List<LocationDTO> items;
+
+    // Opaque keyset cursor for the next page, null when there are no more points
+    private String nextCursor;
+}
@@ -0,0 +1,33 @@
+package com.swifteats.driver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Downsampling options for location history queries. Every option is optional;
+ * null or non-positive values disable it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationHistorySamplingDTO {
+    // Keep at most one point per time bucket of this many seconds
+    private Integer intervalSeconds;
+
+    // Drop points that deviate less than this from the simplified track
+    private Double toleranceMeters;
+
+    // Upper bound on the number of returned points
+    private Integer maxPoints;
+
+    public boolean isEnabled() {
+        return isPositive(intervalSeconds) || (toleranceMeters != null && toleranceMeters > 0) || isPositive(maxPoints);
+    }
+
+    private static boolean isPositive(Integer value) {
+        return value != null && value > 0;
+    }
+}
@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -23,4 +25,7 @@ public class LocationUpdateDTO {
     private Double heading;
     private Double speed;
     private Double accuracy;
+
+    // Device time of the fix; used to drop updates that arrive out of order
+    private LocalDateTime timestamp;
 }
@@ -0,0 +1,28 @@
+package com.swifteats.driver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationUpdateResultDTO {
+    // Position of the update in the submitted batch
+    private int index;
+
+    private Long driverId;
+
+    private Status status;
+
+    private String error;
+
+    public enum Status {
+        ACCEPTED,
+        // Dropped by the ingestion filter (no movement or out of order)
+        FILTERED,
+        REJECTED
+    }
+}
@@ -0,0 +1,17 @@
+package com.swifteats.driver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearestDriverDTO {
+    private DriverDTO driver;
+
+    // Great-circle distance from the query point
+    private double distanceMeters;
+}
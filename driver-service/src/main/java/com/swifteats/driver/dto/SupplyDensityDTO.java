@@ -0,0 +1,22 @@
+package com.swifteats.driver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SupplyDensityDTO {
+    // Side of one density cell
+    private double cellSizeDegrees;
+
+    // Parallel arrays: center of each non-empty cell and its available-driver count
+    private double[] latitudes;
+    private double[] longitudes;
+    private int[] counts;
+
+    private long totalAvailable;
+}
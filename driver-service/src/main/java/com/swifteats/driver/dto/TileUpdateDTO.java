@@ -0,0 +1,27 @@
+package com.swifteats.driver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TileUpdateDTO {
+    private int zoom;
+    private int x;
+    private int y;
+
+    // Latest positions of the drivers currently inside the tile
+    private List<LocationDTO> locations;
+
+    // Drivers that moved into the tile since the previous frame
+    private List<Long> entered;
+
+    // Drivers that moved out of the tile; clients should drop their markers
+    private List<Long> left;
+}
@@ -0,0 +1,209 @@
+package com.swifteats.driver.eta;
+
+import com.swifteats.driver.spatial.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Travel-time estimates learned from the location stream. Every ingested
+ * {@code speed} (km/h) feeds an exponentially weighted moving average for the
+ * driver and for the coarse area cell the driver is in; stationary samples are
+ * ignored so waiting drivers do not drag the averages down.
+ *
+ * <p>An estimate is the straight-line distance times a detour factor, divided
+ * by the speed along the route: the harmonic mean of the area speeds sampled on
+ * the segment between the two cells, optionally blended with the driver's own
+ * recent speed. The route speed is the expensive part and is cached per
+ * (origin cell, destination cell) pair, so a lookup is one map read plus one
+ * haversine.
+ */
+@Component
+public class EtaEstimator {
+
+    private static final double KMH_TO_MPS = 1000.0 / 3600.0;
+    // Below this the driver is waiting rather than driving
+    private static final double MIN_MOVING_SPEED_MPS = 1.0;
+    private static final int MAX_ROUTE_SAMPLES = 16;
+    private static final long DRIVER_SPEED_MAX_AGE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final double areaCellDegrees;
+    private final double defaultSpeedMps;
+    private final double detourFactor;
+    private final double driverAlpha;
+    private final double areaAlpha;
+    private final long cacheTtlNanos;
+    private final int cacheMaxEntries;
+    private final LongSupplier clock;
+
+    private final Map<Long, SpeedAverage> driverSpeeds = new ConcurrentHashMap<>();
+    private final Map<Long, SpeedAverage> areaSpeeds = new ConcurrentHashMap<>();
+    private final Map<CellPair, RouteSpeed> routeSpeeds = new ConcurrentHashMap<>();
+
+    private final Counter cacheHitCounter;
+    private final Counter cacheMissCounter;
+
+    public EtaEstimator(
+            MeterRegistry meterRegistry,
+            @Value("${driver.eta.area-cell-degrees:0.05}") double areaCellDegrees,
+            @Value("${driver.eta.default-speed-kmh:25}") double defaultSpeedKmh,
+            @Value("${driver.eta.detour-factor:1.3}") double detourFactor,
+            @Value("${driver.eta.driver-alpha:0.3}") double driverAlpha,
+            @Value("${driver.eta.area-alpha:0.05}") double areaAlpha,
+            @Value("${driver.eta.cache-ttl-seconds:60}") long cacheTtlSeconds,
+            @Value("${driver.eta.cache-max-entries:100000}") int cacheMaxEntries) {
+        this(meterRegistry, areaCellDegrees, defaultSpeedKmh, detourFactor, driverAlpha, areaAlpha, cacheTtlSeconds,
+                cacheMaxEntries, System::nanoTime);
+    }
+
+    EtaEstimator(MeterRegistry meterRegistry, double areaCellDegrees, double defaultSpeedKmh, double detourFactor,
+            double driverAlpha, double areaAlpha, long cacheTtlSeconds, int cacheMaxEntries, LongSupplier clock) {
+        this.areaCellDegrees = areaCellDegrees;
+        this.defaultSpeedMps = defaultSpeedKmh * KMH_TO_MPS;
+        this.detourFactor = detourFactor;
+        this.driverAlpha = driverAlpha;
+        this.areaAlpha = areaAlpha;
+        this.cacheTtlNanos = TimeUnit.SECONDS.toNanos(cacheTtlSeconds);
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.clock = clock;
+
+        this.cacheHitCounter = Counter.builder("driver.eta.route_cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMissCounter = Counter.builder("driver.eta.route_cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Feed one accepted location sample.
+     */
+    public void record(long driverId, double latitude, double longitude, Double speedKmh) {
+        if (speedKmh == null) {
+            return;
+        }
+        double speedMps = speedKmh * KMH_TO_MPS;
+        if (speedMps < MIN_MOVING_SPEED_MPS) {
+            return;
+        }
+
+        long now = clock.getAsLong();
+        driverSpeeds.computeIfAbsent(driverId, id -> new SpeedAverage()).add(speedMps, driverAlpha, now);
+        areaSpeeds.computeIfAbsent(cellKey(latitude, longitude), key -> new SpeedAverage())
+                .add(speedMps, areaAlpha, now);
+    }
+
+    public void forget(long driverId) {
+        driverSpeeds.remove(driverId);
+    }
+
+    /**
+     * Estimate between two points from area speeds only.
+     */
+    public Estimate estimate(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double distance = GeoUtils.distanceMeters(fromLatitude, fromLongitude, toLatitude, toLongitude) * detourFactor;
+        double speed = routeSpeed(fromLatitude, fromLongitude, toLatitude, toLongitude);
+        return new Estimate(distance, distance / speed, speed);
+    }
+
+    /**
+     * Estimate for a driver at the given position, blending the route speed
+     * with the driver's own recent speed when there is one.
+     */
+    public Estimate estimate(long driverId, double fromLatitude, double fromLongitude, double toLatitude,
+            double toLongitude) {
+        Estimate route = estimate(fromLatitude, fromLongitude, toLatitude, toLongitude);
+        SpeedAverage driverSpeed = driverSpeeds.get(driverId);
+        if (driverSpeed == null) {
+            return route;
+        }
+
+        double ownSpeed = driverSpeed.valueIfFresh(clock.getAsLong(), DRIVER_SPEED_MAX_AGE_NANOS);
+        if (Double.isNaN(ownSpeed)) {
+            return route;
+        }
+        double speed = (route.speedMetersPerSecond() + ownSpeed) / 2;
+        return new Estimate(route.distanceMeters(), route.distanceMeters() / speed, speed);
+    }
+
+    private double routeSpeed(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        CellPair key = new CellPair(cellKey(fromLatitude, fromLongitude), cellKey(toLatitude, toLongitude));
+        long now = clock.getAsLong();
+
+        RouteSpeed cached = routeSpeeds.get(key);
+        if (cached != null && now - cached.expiresAtNanos() < 0) {
+            cacheHitCounter.increment();
+            return cached.speedMetersPerSecond();
+        }
+        cacheMissCounter.increment();
+
+        double speed = sampleRouteSpeed(fromLatitude, fromLongitude, toLatitude, toLongitude);
+        if (routeSpeeds.size() >= cacheMaxEntries) {
+            // Cheap bound on memory; entries are recomputed on demand
+            routeSpeeds.clear();
+        }
+        routeSpeeds.put(key, new RouteSpeed(speed, now + cacheTtlNanos));
+        return speed;
+    }
+
+    /**
+     * Harmonic mean of the area speeds along the straight segment, so slow areas
+     * weigh in proportion to the time spent in them.
+     */
+    private double sampleRouteSpeed(double fromLatitude, double fromLongitude, double toLatitude,
+            double toLongitude) {
+        double cellsCrossed = Math.max(Math.abs(toLatitude - fromLatitude), Math.abs(toLongitude - fromLongitude))
+                / areaCellDegrees;
+        int samples = (int) Math.min(MAX_ROUTE_SAMPLES, Math.ceil(cellsCrossed) + 1);
+
+        double inverseSpeedSum = 0;
+        for (int i = 0; i < samples; i++) {
+            double fraction = samples == 1 ? 0 : (double) i / (samples - 1);
+            double latitude = fromLatitude + (toLatitude - fromLatitude) * fraction;
+            double longitude = fromLongitude + (toLongitude - fromLongitude) * fraction;
+            SpeedAverage area = areaSpeeds.get(cellKey(latitude, longitude));
+            double speed = area != null ? area.value() : defaultSpeedMps;
+            inverseSpeedSum += 1 / speed;
+        }
+        return samples / inverseSpeedSum;
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        int row = (int) Math.floor((latitude + 90) / areaCellDegrees);
+        int column = (int) Math.floor((longitude + 180) / areaCellDegrees);
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    public record Estimate(double distanceMeters, double seconds, double speedMetersPerSecond) {
+    }
+
+    private record CellPair(long from, long to) {
+    }
+
+    private record RouteSpeed(double speedMetersPerSecond, long expiresAtNanos) {
+    }
+
+    private static final class SpeedAverage {
+        private double value = Double.NaN;
+        private long updatedAtNanos;
+
+        synchronized void add(double speed, double alpha, long now) {
+            value = Double.isNaN(value) ? speed : value + alpha * (speed - value);
+            updatedAtNanos = now;
+        }
+
+        synchronized double value() {
+            return value;
+        }
+
+        synchronized double valueIfFresh(long now, long maxAgeNanos) {
+            return now - updatedAtNanos <= maxAgeNanos ? value : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.swifteats.driver.filter;
+
+import com.swifteats.driver.service.LocationWriteBehindService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for the driver API. All requests share one budget of
+ * in-flight requests, and each priority class may only use part of it, so a
+ * flood of location updates or history exports leaves headroom for status
+ * changes and interactive queries. A request over its share is rejected right
+ * away with 429 and a {@code Retry-After} header instead of queueing on a
+ * servlet thread.
+ *
+ * <p>Location updates are additionally shed while the write-behind buffer is
+ * above its high-water mark, which pushes back on senders before the buffer
+ * overflows into synchronous writes.
+ */
+@Component
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String API_PREFIX = "/api/v1/drivers";
+
+    /**
+     * Request classes in priority order.
+     */
+    enum Priority {
+        CRITICAL,
+        INTERACTIVE,
+        INGESTION,
+        BULK
+    }
+
+    private final LocationWriteBehindService writeBehindService;
+    private final boolean enabled;
+    private final int ingestionQueueHighWater;
+    private final String retryAfterSeconds;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Priority, Integer> limits = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> rejectedCounters = new EnumMap<>(Priority.class);
+
+    public AdmissionControlFilter(
+            LocationWriteBehindService writeBehindService,
+            MeterRegistry meterRegistry,
+            @Value("${driver.admission.enabled:true}") boolean enabled,
+            @Value("${driver.admission.max-in-flight:256}") int maxInFlight,
+            @Value("${driver.admission.interactive-limit-percent:90}") int interactivePercent,
+            @Value("${driver.admission.ingestion-limit-percent:70}") int ingestionPercent,
+            @Value("${driver.admission.bulk-limit-percent:30}") int bulkPercent,
+            @Value("${driver.admission.ingestion-queue-high-water:40000}") int ingestionQueueHighWater,
+            @Value("${driver.admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.writeBehindService = writeBehindService;
+        this.enabled = enabled;
+        this.ingestionQueueHighWater = ingestionQueueHighWater;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+
+        limits.put(Priority.CRITICAL, maxInFlight);
+        limits.put(Priority.INTERACTIVE, Math.max(1, maxInFlight * interactivePercent / 100));
+        limits.put(Priority.INGESTION, Math.max(1, maxInFlight * ingestionPercent / 100));
+        limits.put(Priority.BULK, Math.max(1, maxInFlight * bulkPercent / 100));
+
+        Gauge.builder("driver.admission.in_flight", inFlight, AtomicInteger::get)
+                .description("API requests currently being processed")
+                .register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            rejectedCounters.put(priority, Counter.builder("driver.admission.rejected")
+                    .tag("priority", priority.name().toLowerCase())
+                    .description("Requests shed with 429")
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = classify(request);
+
+        if (!tryAcquire(priority)) {
+            rejectedCounters.get(priority).increment();
+            log.debug("Shedding {} {} ({} in flight)", request.getMethod(), request.getRequestURI(), inFlight.get());
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many requests\"}");
+            return;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streaming responses hold their permit until the body is written
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    Priority classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(API_PREFIX.length());
+        String method = request.getMethod();
+
+        if ("POST".equals(method) && path.equals("/status")) {
+            return Priority.CRITICAL;
+        }
+        if ("POST".equals(method) && (path.equals("/location") || path.equals("/location/batch"))) {
+            return Priority.INGESTION;
+        }
+        if ("GET".equals(method) && path.contains("/location/history")
+                || "POST".equals(method) && path.equals("/bulk")) {
+            return Priority.BULK;
+        }
+        return Priority.INTERACTIVE;
+    }
+
+    private boolean tryAcquire(Priority priority) {
+        if (priority == Priority.INGESTION && writeBehindService.getQueueDepth() >= ingestionQueueHighWater) {
+            return false;
+        }
+
+        int limit = limits.get(priority);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private record ReleasingAsyncListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Listener is carried over to the new cycle
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.swifteats.driver.geofence;
+
+/**
+ * Circular fence of one order. A fence with a {@code driverId} only reacts to
+ * that driver; without one it reacts to any driver.
+ */
+public record Geofence(long orderId, GeofenceType type, Long driverId, double latitude, double longitude,
+        double radiusMeters) {
+
+    boolean appliesTo(long candidateDriverId) {
+        return driverId == null || driverId == candidateDriverId;
+    }
+}
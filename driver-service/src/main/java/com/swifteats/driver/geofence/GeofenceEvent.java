@@ -0,0 +1,5 @@
+package com.swifteats.driver.geofence;
+
+public record GeofenceEvent(String event, long orderId, GeofenceType type, long driverId, double latitude,
+        double longitude) {
+}
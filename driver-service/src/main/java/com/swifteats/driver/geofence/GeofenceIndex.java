@@ -0,0 +1,225 @@
+package com.swifteats.driver.geofence;
+
+import com.swifteats.driver.spatial.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Uniform grid of circular fences. Every fence is listed in each cell its
+ * bounding box overlaps, so a location point is only tested against the few
+ * fences of its own cell, plus the fences the driver is currently inside.
+ *
+ * <p>A driver enters a fence within its radius and leaves it beyond the radius
+ * plus a hysteresis margin, so GPS jitter at the boundary does not produce a
+ * stream of enter/exit pairs.
+ */
+public class GeofenceIndex {
+
+    private final double cellSizeDegrees;
+    private final double exitHysteresisMeters;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, List<Geofence>> fencesByCell = new HashMap<>();
+    private final Map<FenceKey, Geofence> fencesByKey = new HashMap<>();
+
+    // Fences each driver is inside of; updated atomically per driver
+    private final Map<Long, List<Geofence>> insideByDriver = new ConcurrentHashMap<>();
+
+    public GeofenceIndex(double cellSizeDegrees, double exitHysteresisMeters) {
+        if (cellSizeDegrees <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSizeDegrees);
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.exitHysteresisMeters = exitHysteresisMeters;
+    }
+
+    /**
+     * Add a fence, replacing the fence of the same order and type if present.
+     */
+    public void register(Geofence fence) {
+        lock.writeLock().lock();
+        try {
+            Geofence previous = fencesByKey.put(FenceKey.of(fence), fence);
+            if (previous != null) {
+                removeFromCells(previous);
+            }
+            forEachCell(fence, cellKey -> fencesByCell.computeIfAbsent(cellKey, key -> new ArrayList<>()).add(fence));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every fence of an order. Drivers inside them get no exit event.
+     *
+     * @return the number of fences removed
+     */
+    public int removeOrder(long orderId) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (GeofenceType type : GeofenceType.values()) {
+                Geofence fence = fencesByKey.remove(new FenceKey(orderId, type));
+                if (fence != null) {
+                    removeFromCells(fence);
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the fence of one order and type. Drivers inside it get no exit event.
+     *
+     * @return whether a fence was removed
+     */
+    public boolean remove(long orderId, GeofenceType type) {
+        lock.writeLock().lock();
+        try {
+            Geofence fence = fencesByKey.remove(new FenceKey(orderId, type));
+            if (fence != null) {
+                removeFromCells(fence);
+            }
+            return fence != null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Geofence> getFences(long orderId) {
+        lock.readLock().lock();
+        try {
+            List<Geofence> fences = new ArrayList<>();
+            for (GeofenceType type : GeofenceType.values()) {
+                Geofence fence = fencesByKey.get(new FenceKey(orderId, type));
+                if (fence != null) {
+                    fences.add(fence);
+                }
+            }
+            return fences;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return fencesByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Test a location point of a driver and return the fence transitions it causes.
+     */
+    public List<GeofenceEvent> evaluate(long driverId, double latitude, double longitude) {
+        List<GeofenceEvent> events = new ArrayList<>(0);
+
+        lock.readLock().lock();
+        try {
+            List<Geofence> cellFences = fencesByCell.get(cellKey(row(latitude), column(longitude)));
+            if (cellFences == null && !insideByDriver.containsKey(driverId)) {
+                // Common case: nothing nearby and nothing to leave
+                return events;
+            }
+
+            insideByDriver.compute(driverId, (id, inside) -> {
+                List<Geofence> current = inside != null ? inside : new ArrayList<>(2);
+
+                Iterator<Geofence> iterator = current.iterator();
+                while (iterator.hasNext()) {
+                    Geofence fence = iterator.next();
+                    if (fencesByKey.get(FenceKey.of(fence)) != fence) {
+                        // Removed or replaced since the driver entered it
+                        iterator.remove();
+                    } else if (distance(fence, latitude, longitude) > fence.radiusMeters() + exitHysteresisMeters) {
+                        iterator.remove();
+                        events.add(event(fence.type().getExitEvent(), fence, driverId, latitude, longitude));
+                    }
+                }
+
+                if (cellFences != null) {
+                    for (Geofence fence : cellFences) {
+                        if (fence.appliesTo(driverId) && !current.contains(fence)
+                                && distance(fence, latitude, longitude) <= fence.radiusMeters()) {
+                            current.add(fence);
+                            events.add(event(fence.type().getEnterEvent(), fence, driverId, latitude, longitude));
+                        }
+                    }
+                }
+                return current.isEmpty() ? null : current;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return events;
+    }
+
+    private void removeFromCells(Geofence fence) {
+        forEachCell(fence, cellKey -> {
+            List<Geofence> fences = fencesByCell.get(cellKey);
+            if (fences != null) {
+                fences.remove(fence);
+                if (fences.isEmpty()) {
+                    fencesByCell.remove(cellKey);
+                }
+            }
+        });
+    }
+
+    private void forEachCell(Geofence fence, LongConsumer action) {
+        double latDelta = fence.radiusMeters() / GeoUtils.METERS_PER_DEGREE;
+        double lngDelta = fence.radiusMeters() / GeoUtils.metersPerDegreeLongitude(fence.latitude());
+        int minRow = row(fence.latitude() - latDelta);
+        int maxRow = row(fence.latitude() + latDelta);
+        int minColumn = column(fence.longitude() - lngDelta);
+        int maxColumn = column(fence.longitude() + lngDelta);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                action.accept(cellKey(row, column));
+            }
+        }
+    }
+
+    private static double distance(Geofence fence, double latitude, double longitude) {
+        return GeoUtils.distanceMeters(fence.latitude(), fence.longitude(), latitude, longitude);
+    }
+
+    private static GeofenceEvent event(String name, Geofence fence, long driverId, double latitude,
+            double longitude) {
+        return new GeofenceEvent(name, fence.orderId(), fence.type(), driverId, latitude, longitude);
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellSizeDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellSizeDegrees);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    private record FenceKey(long orderId, GeofenceType type) {
+
+        static FenceKey of(Geofence fence) {
+            return new FenceKey(fence.orderId(), fence.type());
+        }
+    }
+}
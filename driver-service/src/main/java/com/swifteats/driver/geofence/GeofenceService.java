@@ -0,0 +1,312 @@
+package com.swifteats.driver.geofence;
+
+import com.swifteats.driver.config.RabbitMQConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Pickup and drop-off detection. Fences are registered per active order; every
+ * accepted location point is tested against the fences of its grid cell and
+ * each transition is published on the driver exchange so order status can
+ * advance without polling.
+ *
+ * <p>Fences registered with a time to live are transient: they are removed as
+ * soon as their exit event fires, or when the time to live runs out for a
+ * driver that never got there, so nobody has to delete them explicitly.
+ *
+ * <p>Every replica holds all fences, whichever replica registered them: each
+ * change is written to the {@value #SHARED_FENCES_KEY} hash, which a starting
+ * instance loads, and announced on {@value #CHANGES_CHANNEL}, where the other
+ * instances apply it. Enter and exit state stays per replica, so a driver
+ * whose points switch instances while inside a fence may see its enter event
+ * twice.
+ */
+@Service
+@Slf4j
+public class GeofenceService implements MessageListener {
+
+    public static final String SHARED_FENCES_KEY = "driver:geofences";
+    public static final String CHANGES_CHANNEL = "driver:geofence:changes";
+
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DEL";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final GeofenceIndex index;
+    private final double defaultRadiusMeters;
+    private final LongSupplier clock;
+    private final String instanceId = UUID.randomUUID().toString();
+    // Expiry of each transient fence, in epoch millis
+    private final Map<FenceId, Long> transientFences = new ConcurrentHashMap<>();
+
+    public GeofenceService(
+            RabbitTemplate rabbitTemplate,
+            StringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${driver.geofence.cell-size-degrees:0.005}") double cellSizeDegrees,
+            @Value("${driver.geofence.exit-hysteresis-meters:25}") double exitHysteresisMeters,
+            @Value("${driver.geofence.default-radius-meters:75}") double defaultRadiusMeters) {
+        this(rabbitTemplate, stringRedisTemplate, meterRegistry, cellSizeDegrees, exitHysteresisMeters,
+                defaultRadiusMeters, System::currentTimeMillis);
+    }
+
+    GeofenceService(RabbitTemplate rabbitTemplate, StringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry, double cellSizeDegrees, double exitHysteresisMeters,
+            double defaultRadiusMeters, LongSupplier clock) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.index = new GeofenceIndex(cellSizeDegrees, exitHysteresisMeters);
+        this.defaultRadiusMeters = defaultRadiusMeters;
+        this.clock = clock;
+
+        Gauge.builder("driver.geofence.active", index, GeofenceIndex::size)
+                .description("Registered geofences")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load the fences registered before this instance started.
+     */
+    @PostConstruct
+    public void loadSharedFences() {
+        Map<Object, Object> entries;
+        try {
+            entries = stringRedisTemplate.opsForHash().entries(SHARED_FENCES_KEY);
+        } catch (DataAccessException e) {
+            log.warn("Failed to load shared geofences, starting with none: {}", e.getMessage());
+            return;
+        }
+        long now = clock.getAsLong();
+        int loaded = 0;
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            try {
+                FenceId id = FenceId.parse((String) entry.getKey());
+                SharedFence shared = decode(id, (String) entry.getValue());
+                if (shared.expiresAt() != 0 && shared.expiresAt() <= now) {
+                    removeShared(id);
+                } else {
+                    registerLocally(id, shared.fence(), shared.expiresAt());
+                    loaded++;
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed shared geofence {}: {}", entry.getKey(), entry.getValue());
+            }
+        }
+        log.info("Loaded {} shared geofences", loaded);
+    }
+
+    public Geofence register(long orderId, GeofenceType type, Long driverId, double latitude, double longitude,
+            Double radiusMeters) {
+        return register(orderId, type, driverId, latitude, longitude, radiusMeters, 0);
+    }
+
+    /**
+     * Register a transient fence, removed on its exit event or after {@code ttl}.
+     */
+    public Geofence register(long orderId, GeofenceType type, Long driverId, double latitude, double longitude,
+            Double radiusMeters, Duration ttl) {
+        return register(orderId, type, driverId, latitude, longitude, radiusMeters,
+                clock.getAsLong() + ttl.toMillis());
+    }
+
+    public List<Geofence> getFences(long orderId) {
+        return index.getFences(orderId);
+    }
+
+    public int removeOrder(long orderId) {
+        int removed = 0;
+        for (GeofenceType type : GeofenceType.values()) {
+            FenceId id = new FenceId(orderId, type);
+            if (removeLocally(id)) {
+                removed++;
+            }
+            removeShared(id);
+        }
+        return removed;
+    }
+
+    @Scheduled(fixedDelayString = "${driver.geofence.expiry-interval-ms:60000}")
+    public void removeExpired() {
+        long now = clock.getAsLong();
+        transientFences.forEach((id, expiresAt) -> {
+            // Every replica expires its copy at the same time; the shared entry is deleted by all of them
+            if (expiresAt <= now && transientFences.remove(id, expiresAt)) {
+                index.remove(id.orderId(), id.type());
+                removeShared(id);
+                log.debug("Expired {} geofence for order {}", id.type(), id.orderId());
+            }
+        });
+    }
+
+    /**
+     * Test an accepted location point and publish the resulting events.
+     */
+    public void onLocation(long driverId, double latitude, double longitude) {
+        List<GeofenceEvent> events = index.evaluate(driverId, latitude, longitude);
+        for (GeofenceEvent event : events) {
+            publish(event);
+            FenceId id = new FenceId(event.orderId(), event.type());
+            if (event.event().equals(event.type().getExitEvent()) && transientFences.containsKey(id)) {
+                removeLocally(id);
+                removeShared(id);
+            }
+        }
+    }
+
+    /**
+     * Fence change from any instance: {@code instanceId|PUT|orderId:type|fence}
+     * or {@code instanceId|DEL|orderId:type}. Messages sent by this instance are
+     * ignored.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = payload.split("\\|", 4);
+        if (parts.length < 3 || parts[0].equals(instanceId)) {
+            return;
+        }
+        try {
+            FenceId id = FenceId.parse(parts[2]);
+            if (PUT.equals(parts[1]) && parts.length == 4) {
+                SharedFence shared = decode(id, parts[3]);
+                registerLocally(id, shared.fence(), shared.expiresAt());
+            } else if (DELETE.equals(parts[1])) {
+                removeLocally(id);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed geofence change: {}", payload);
+        }
+    }
+
+    private Geofence register(long orderId, GeofenceType type, Long driverId, double latitude, double longitude,
+            Double radiusMeters, long expiresAt) {
+        Geofence fence = new Geofence(orderId, type, driverId, latitude, longitude,
+                radiusMeters != null ? radiusMeters : defaultRadiusMeters);
+        FenceId id = new FenceId(orderId, type);
+        registerLocally(id, fence, expiresAt);
+        share(id, encode(fence, expiresAt));
+        log.debug("Registered {} geofence for order {}", type, orderId);
+        return fence;
+    }
+
+    private void registerLocally(FenceId id, Geofence fence, long expiresAt) {
+        index.register(fence);
+        if (expiresAt != 0) {
+            transientFences.put(id, expiresAt);
+        } else {
+            // A permanent registration replaces a transient one
+            transientFences.remove(id);
+        }
+    }
+
+    private boolean removeLocally(FenceId id) {
+        transientFences.remove(id);
+        return index.remove(id.orderId(), id.type());
+    }
+
+    private static SharedFence decode(FenceId id, String encoded) {
+        String[] fields = encoded.split(",", -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Expected 5 fields: " + encoded);
+        }
+        Long driverId = fields[0].isEmpty() ? null : Long.valueOf(fields[0]);
+        Geofence fence = new Geofence(id.orderId(), id.type(), driverId, Double.parseDouble(fields[1]),
+                Double.parseDouble(fields[2]), Double.parseDouble(fields[3]));
+        return new SharedFence(fence, Long.parseLong(fields[4]));
+    }
+
+    // driverId,latitude,longitude,radius,expiresAt (0 = permanent)
+    private static String encode(Geofence fence, long expiresAt) {
+        return (fence.driverId() != null ? fence.driverId().toString() : "") + ','
+                + fence.latitude() + ',' + fence.longitude() + ',' + fence.radiusMeters() + ',' + expiresAt;
+    }
+
+    private void share(FenceId id, String encoded) {
+        try {
+            stringRedisTemplate.opsForHash().put(SHARED_FENCES_KEY, id.toString(), encoded);
+            stringRedisTemplate.convertAndSend(CHANGES_CHANNEL, instanceId + '|' + PUT + '|' + id + '|' + encoded);
+        } catch (DataAccessException e) {
+            log.warn("Failed to share {} geofence of order {}, it only applies on this instance: {}",
+                    id.type(), id.orderId(), e.getMessage());
+        }
+    }
+
+    private void removeShared(FenceId id) {
+        try {
+            stringRedisTemplate.opsForHash().delete(SHARED_FENCES_KEY, id.toString());
+            stringRedisTemplate.convertAndSend(CHANGES_CHANNEL, instanceId + '|' + DELETE + '|' + id);
+        } catch (DataAccessException e) {
+            log.warn("Failed to remove shared {} geofence of order {}: {}", id.type(), id.orderId(),
+                    e.getMessage());
+        }
+    }
+
+    private void publish(GeofenceEvent event) {
+        Counter.builder("driver.geofence.events")
+                .tag("event", event.event())
+                .register(meterRegistry)
+                .increment();
+        try {
+            Map<String, Object> message = Map.of(
+                    "event", event.event(),
+                    "orderId", event.orderId(),
+                    "driverId", event.driverId(),
+                    "latitude", event.latitude(),
+                    "longitude", event.longitude(),
+                    "timestamp", System.currentTimeMillis());
+
+            rabbitTemplate.convertAndSend(
+                    RabbitMQConfig.DRIVER_EXCHANGE,
+                    RabbitMQConfig.DRIVER_GEOFENCE_EVENT_KEY,
+                    message);
+
+            log.info("Geofence event {} for order {} and driver {}", event.event(), event.orderId(),
+                    event.driverId());
+        } catch (AmqpException e) {
+            log.error("Failed to publish geofence event {} for order {}", event.event(), event.orderId(), e);
+        }
+    }
+
+    private record SharedFence(Geofence fence, long expiresAt) {
+    }
+
+    private record FenceId(long orderId, GeofenceType type) {
+
+        static FenceId parse(String value) {
+            int separator = value.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected orderId:type: " + value);
+            }
+            return new FenceId(Long.parseLong(value.substring(0, separator)),
+                    GeofenceType.valueOf(value.substring(separator + 1)));
+        }
+
+        @Override
+        public String toString() {
+            return orderId + ":" + type;
+        }
+    }
+}
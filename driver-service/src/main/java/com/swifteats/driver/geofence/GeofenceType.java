@@ -0,0 +1,25 @@
+package com.swifteats.driver.geofence;
+
+/**
+ * Kind of fence, with the events emitted when the driver enters and leaves it.
+ */
+public enum GeofenceType {
+    RESTAURANT("ARRIVED_AT_RESTAURANT", "DEPARTED_RESTAURANT"),
+    CUSTOMER("NEAR_CUSTOMER", "LEFT_CUSTOMER");
+
+    private final String enterEvent;
+    private final String exitEvent;
+
+    GeofenceType(String enterEvent, String exitEvent) {
+        this.enterEvent = enterEvent;
+        this.exitEvent = exitEvent;
+    }
+
+    public String getEnterEvent() {
+        return enterEvent;
+    }
+
+    public String getExitEvent() {
+        return exitEvent;
+    }
+}
@@ -0,0 +1,267 @@
+package com.swifteats.driver.matching;
+
+import com.swifteats.driver.config.RabbitMQConfig;
+import com.swifteats.driver.eta.EtaEstimator;
+import com.swifteats.driver.geofence.GeofenceService;
+import com.swifteats.driver.geofence.GeofenceType;
+import com.swifteats.driver.service.DriverService;
+import com.swifteats.driver.spatial.NearbyDriver;
+import com.swifteats.driver.spatial.NearbyDriverSearch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Batch matching of pending orders to available drivers. Orders are collected
+ * for one matching window; each round takes the nearest available drivers of
+ * every pickup point from the spatial index as candidates, builds an
+ * order × driver matrix of estimated pickup times and solves it as one
+ * assignment problem, which minimizes the total pickup time of the round
+ * instead of giving each order the nearest driver on a first-come basis.
+ *
+ * <p>Assigned drivers are claimed with a conditional status update, so a
+ * driver taken in the meantime (by a status change or another replica) sends
+ * its order back to the next round. An order still without a driver after
+ * {@code max-attempts} rounds is published with status {@code NO_DRIVER}, so
+ * order-service can cancel or resubmit it. A transient restaurant geofence is
+ * registered for every assignment so the driver's arrival at the pickup is
+ * detected; it is removed once the driver departs the restaurant, or after
+ * {@code pickup-fence-ttl-minutes}.
+ *
+ * <p>Pending orders are held in memory only and the assignment messages were
+ * already acknowledged, so on shutdown every order still pending is published
+ * back to the assignment queue for another replica (or the next start) to
+ * match. Orders of a process that is killed are lost.
+ */
+@Service
+@Slf4j
+public class DriverMatchingService {
+
+    private final DriverService driverService;
+    private final NearbyDriverSearch nearbySearch;
+    private final RabbitTemplate rabbitTemplate;
+    private final EtaEstimator etaEstimator;
+    private final GeofenceService geofenceService;
+
+    private final int candidatesPerOrder;
+    private final double maxPickupDistanceMeters;
+    private final int maxAttempts;
+    private final int maxBatchSize;
+    private final Duration pickupFenceTtl;
+
+    private final Queue<PendingOrder> pendingOrders = new ConcurrentLinkedQueue<>();
+
+    private final Timer roundTimer;
+    private final Counter assignedCounter;
+    private final Counter requeuedCounter;
+    private final Counter expiredCounter;
+    private final Counter handedBackCounter;
+
+    public DriverMatchingService(
+            DriverService driverService,
+            NearbyDriverSearch nearbySearch,
+            RabbitTemplate rabbitTemplate,
+            EtaEstimator etaEstimator,
+            GeofenceService geofenceService,
+            MeterRegistry meterRegistry,
+            @Value("${driver.matching.candidates-per-order:8}") int candidatesPerOrder,
+            @Value("${driver.matching.max-pickup-distance-meters:10000}") double maxPickupDistanceMeters,
+            @Value("${driver.matching.max-attempts:30}") int maxAttempts,
+            @Value("${driver.matching.max-batch-size:1000}") int maxBatchSize,
+            @Value("${driver.matching.pickup-fence-ttl-minutes:120}") long pickupFenceTtlMinutes) {
+        this.driverService = driverService;
+        this.nearbySearch = nearbySearch;
+        this.rabbitTemplate = rabbitTemplate;
+        this.etaEstimator = etaEstimator;
+        this.geofenceService = geofenceService;
+        this.candidatesPerOrder = candidatesPerOrder;
+        this.maxPickupDistanceMeters = maxPickupDistanceMeters;
+        this.maxAttempts = maxAttempts;
+        this.maxBatchSize = maxBatchSize;
+        this.pickupFenceTtl = Duration.ofMinutes(pickupFenceTtlMinutes);
+
+        Gauge.builder("driver.matching.pending", pendingOrders, Queue::size)
+                .description("Orders waiting for the next matching round")
+                .register(meterRegistry);
+        this.roundTimer = Timer.builder("driver.matching.round")
+                .description("Time spent matching one batch of orders")
+                .register(meterRegistry);
+        this.assignedCounter = Counter.builder("driver.matching.orders")
+                .tag("result", "assigned")
+                .register(meterRegistry);
+        this.requeuedCounter = Counter.builder("driver.matching.orders")
+                .tag("result", "requeued")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("driver.matching.orders")
+                .tag("result", "expired")
+                .register(meterRegistry);
+        this.handedBackCounter = Counter.builder("driver.matching.orders")
+                .tag("result", "handed-back")
+                .register(meterRegistry);
+    }
+
+    public void submit(long orderId, double pickupLatitude, double pickupLongitude) {
+        pendingOrders.add(new PendingOrder(orderId, pickupLatitude, pickupLongitude, 0));
+    }
+
+    public int getPendingCount() {
+        return pendingOrders.size();
+    }
+
+    @Scheduled(fixedDelayString = "${driver.matching.window-ms:2000}")
+    public void matchPendingOrders() {
+        List<PendingOrder> batch = new ArrayList<>();
+        PendingOrder order;
+        while (batch.size() < maxBatchSize && (order = pendingOrders.poll()) != null) {
+            batch.add(order);
+        }
+        if (!batch.isEmpty()) {
+            roundTimer.record(() -> match(batch));
+        }
+    }
+
+    private void match(List<PendingOrder> orders) {
+        // Columns are the distinct candidate drivers of the whole batch
+        Map<Long, Integer> columnsByDriver = new HashMap<>();
+        List<Long> driverIds = new ArrayList<>();
+        List<List<NearbyDriver>> candidatesByOrder = new ArrayList<>(orders.size());
+
+        for (PendingOrder order : orders) {
+            List<NearbyDriver> candidates = nearbySearch.findNearestAvailable(order.pickupLatitude(),
+                    order.pickupLongitude(), candidatesPerOrder, maxPickupDistanceMeters);
+            candidatesByOrder.add(candidates);
+            for (NearbyDriver candidate : candidates) {
+                columnsByDriver.computeIfAbsent(candidate.driverId(), id -> {
+                    driverIds.add(id);
+                    return driverIds.size() - 1;
+                });
+            }
+        }
+
+        double[][] cost = new double[orders.size()][driverIds.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            PendingOrder order = orders.get(i);
+            Arrays.fill(cost[i], HungarianAssignment.FORBIDDEN);
+            for (NearbyDriver candidate : candidatesByOrder.get(i)) {
+                cost[i][columnsByDriver.get(candidate.driverId())] = etaEstimator.estimate(candidate.driverId(),
+                        candidate.latitude(), candidate.longitude(),
+                        order.pickupLatitude(), order.pickupLongitude()).seconds();
+            }
+        }
+
+        int[] assignment = HungarianAssignment.solve(cost);
+
+        int assigned = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            PendingOrder order = orders.get(i);
+            int column = assignment[i];
+            if (column >= 0 && driverService.claimAvailableDriver(driverIds.get(column))) {
+                geofenceService.register(order.orderId(), GeofenceType.RESTAURANT, driverIds.get(column),
+                        order.pickupLatitude(), order.pickupLongitude(), null, pickupFenceTtl);
+                publishAssignment(order, driverIds.get(column), cost[i][column]);
+                assigned++;
+            } else {
+                requeue(order);
+            }
+        }
+        log.info("Matched {} of {} pending orders against {} candidate drivers",
+                assigned, orders.size(), driverIds.size());
+    }
+
+    private void publishAssignment(PendingOrder order, long driverId, double pickupEtaSeconds) {
+        assignedCounter.increment();
+        try {
+            Map<String, Object> message = Map.of(
+                    "orderId", order.orderId(),
+                    "driverId", driverId,
+                    "status", "ASSIGNED",
+                    "pickupEtaSeconds", Math.round(pickupEtaSeconds),
+                    "timestamp", System.currentTimeMillis());
+
+            rabbitTemplate.convertAndSend(
+                    RabbitMQConfig.ORDER_EXCHANGE,
+                    RabbitMQConfig.ORDER_STATUS_UPDATE_KEY,
+                    message);
+
+            log.debug("Assigned driver {} to order {} ({} s to pickup)", driverId, order.orderId(),
+                    Math.round(pickupEtaSeconds));
+        } catch (AmqpException e) {
+            log.error("Failed to publish assignment of driver {} to order {}", driverId, order.orderId(), e);
+        }
+    }
+
+    private void publishNoDriver(PendingOrder order) {
+        try {
+            Map<String, Object> message = Map.of(
+                    "orderId", order.orderId(),
+                    "status", "NO_DRIVER",
+                    "attempts", maxAttempts,
+                    "timestamp", System.currentTimeMillis());
+
+            rabbitTemplate.convertAndSend(
+                    RabbitMQConfig.ORDER_EXCHANGE,
+                    RabbitMQConfig.ORDER_STATUS_UPDATE_KEY,
+                    message);
+        } catch (AmqpException e) {
+            log.error("Failed to publish that no driver was found for order {}", order.orderId(), e);
+        }
+    }
+
+    /**
+     * Publish the orders still pending back to the assignment queue instead of
+     * dropping them with the process.
+     */
+    @PreDestroy
+    public void handBackPendingOrders() {
+        int handedBack = 0;
+        PendingOrder order;
+        while ((order = pendingOrders.poll()) != null) {
+            try {
+                Map<String, Object> message = Map.of(
+                        "orderId", order.orderId(),
+                        "pickupLatitude", order.pickupLatitude(),
+                        "pickupLongitude", order.pickupLongitude());
+
+                rabbitTemplate.convertAndSend(
+                        RabbitMQConfig.DRIVER_EXCHANGE,
+                        RabbitMQConfig.DRIVER_ASSIGNMENT_KEY,
+                        message);
+                handedBack++;
+            } catch (AmqpException e) {
+                log.error("Failed to hand back pending order {}", order.orderId(), e);
+            }
+        }
+        if (handedBack > 0) {
+            handedBackCounter.increment(handedBack);
+            log.info("Handed {} pending orders back to {}", handedBack, RabbitMQConfig.DRIVER_ASSIGNMENT_QUEUE);
+        }
+    }
+
+    private void requeue(PendingOrder order) {
+        if (order.attempts() + 1 >= maxAttempts) {
+            expiredCounter.increment();
+            log.warn("No driver found for order {} after {} matching rounds", order.orderId(), maxAttempts);
+            publishNoDriver(order);
+            return;
+        }
+        requeuedCounter.increment();
+        pendingOrders.add(order.nextAttempt());
+    }
+}
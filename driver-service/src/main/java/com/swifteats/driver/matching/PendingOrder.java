@@ -0,0 +1,12 @@
+package com.swifteats.driver.matching;
+
+/**
+ * An order waiting for a driver, with the number of matching rounds it has
+ * already gone through without one.
+ */
+public record PendingOrder(long orderId, double pickupLatitude, double pickupLongitude, int attempts) {
+
+    PendingOrder nextAttempt() {
+        return new PendingOrder(orderId, pickupLatitude, pickupLongitude, attempts + 1);
+    }
+}
@@ -2,6 +2,7 @@ package com.swifteats.driver.messaging;
 
 import com.swifteats.driver.config.RabbitMQConfig;
 import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.matching.DriverMatchingService;
 import com.swifteats.driver.service.DriverService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,14 +19,23 @@ public class DriverMessagingService {
 
     private final RabbitTemplate rabbitTemplate;
     private final DriverService driverService;
+    private final DriverMatchingService matchingService;
 
     @RabbitListener(queues = RabbitMQConfig.DRIVER_ASSIGNMENT_QUEUE)
     public void handleDriverAssignment(Map<String, Object> assignment) {
         try {
             log.info("Received driver assignment: {}", assignment);
-            Long driverId = ((Number) assignment.get("driverId")).longValue();
             Long orderId = ((Number) assignment.get("orderId")).longValue();
 
+            // Orders without a driver are matched in the next batch round
+            if (assignment.get("driverId") == null) {
+                matchingService.submit(orderId,
+                        ((Number) assignment.get("pickupLatitude")).doubleValue(),
+                        ((Number) assignment.get("pickupLongitude")).doubleValue());
+                return;
+            }
+            Long driverId = ((Number) assignment.get("driverId")).longValue();
+
             // Process driver assignment
             // Send confirmation of assignment back to order service
             Map<String, Object> response = Map.of(
@@ -38,6 +38,9 @@ public class Driver {
     @Column(nullable = false)
     private DriverStatus status = DriverStatus.OFFLINE;
 
+    @Embedded
+    private DriverCurrentLocation currentLocation;
+
     @OneToMany(mappedBy = "driver", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<DriverLocation> locationHistory = new ArrayList<>();
 
@@ -0,0 +1,41 @@
+package com.swifteats.driver.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized copy of a driver's latest location, stored as columns on the
+ * {@code drivers} row. The columns are written only by the location
+ * write-behind flusher, so JPA never inserts or updates them and a status
+ * change cannot overwrite a newer position with a stale one.
+ */
+@Embeddable
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverCurrentLocation {
+    @Column(name = "current_latitude", insertable = false, updatable = false)
+    private Double latitude;
+
+    @Column(name = "current_longitude", insertable = false, updatable = false)
+    private Double longitude;
+
+    @Column(name = "current_heading", insertable = false, updatable = false)
+    private Double heading;
+
+    @Column(name = "current_speed", insertable = false, updatable = false)
+    private Double speed;
+
+    @Column(name = "current_accuracy", insertable = false, updatable = false)
+    private Double accuracy;
+
+    @Column(name = "current_location_at", insertable = false, updatable = false)
+    private LocalDateTime timestamp;
+}
@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "driver_locations", indexes = {
-        @Index(name = "idx_driver_location_timestamp", columnList = "timestamp")
+        @Index(name = "idx_driver_location_timestamp", columnList = "timestamp"),
+        @Index(name = "idx_driver_location_driver_timestamp_id", columnList = "driver_id, timestamp, id")
 })
 @Data
 @Builder
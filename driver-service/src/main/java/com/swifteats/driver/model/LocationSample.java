@@ -0,0 +1,18 @@
+package com.swifteats.driver.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * An accepted location point that is waiting to be persisted to
+ * {@code driver_locations}. Unlike {@link DriverLocation} it carries no
+ * reference to the driver entity, so producing one never touches Hibernate.
+ */
+public record LocationSample(
+        long driverId,
+        double latitude,
+        double longitude,
+        Double heading,
+        Double speed,
+        Double accuracy,
+        LocalDateTime timestamp) {
+}
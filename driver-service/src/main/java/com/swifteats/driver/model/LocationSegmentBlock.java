@@ -0,0 +1,14 @@
+package com.swifteats.driver.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Encoded location points of one driver to be appended to the track segment
+ * starting at {@code segmentStart} in {@code driver_location_segments}.
+ */
+public record LocationSegmentBlock(
+        long driverId,
+        LocalDateTime segmentStart,
+        int pointCount,
+        byte[] data) {
+}
@@ -0,0 +1,216 @@
+package com.swifteats.driver.prediction;
+
+import com.swifteats.driver.spatial.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Dead reckoning: the position of a moving driver is extrapolated from the last
+ * accepted fix along its {@code heading} at its {@code speed}. Extrapolation
+ * stops after {@code max-horizon-seconds}, so a driver that went silent is not
+ * carried off indefinitely, and drivers without heading or speed, or slower
+ * than {@code min-speed-kmh}, stay at their fix.
+ *
+ * <p>The same extrapolation decides which fixes are worth broadcasting. Map
+ * clients extrapolate the last fix they received, so a fix within
+ * {@code max-deviation-meters} of where they already show the driver, without
+ * a turn, carries no news for them. Only the tile broadcast is skipped: every
+ * accepted fix still reaches the spatial index, caches and history.
+ */
+@Component
+public class MotionPredictor {
+
+    private static final double KMH_TO_MPS = 1000.0 / 3600.0;
+
+    private final boolean enabled;
+    private final long maxHorizonMillis;
+    private final double maxDeviationMeters;
+    private final double minSpeedMps;
+    private final double maxHeadingChangeDegrees;
+    private final long broadcastKeepAliveMillis;
+    private final LongSupplier clock;
+
+    // Latest accepted fix, for serving predictions
+    private final Map<Long, Motion> motions = new ConcurrentHashMap<>();
+    // Last broadcast fix, which is what map clients extrapolate
+    private final Map<Long, Motion> broadcastMotions = new ConcurrentHashMap<>();
+
+    private final Counter predictedCounter;
+    private final Counter unavailableCounter;
+    private final Counter broadcastSkippedCounter;
+    private final DistributionSummary deviationSummary;
+
+    public MotionPredictor(
+            MeterRegistry meterRegistry,
+            @Value("${driver.prediction.enabled:true}") boolean enabled,
+            @Value("${driver.prediction.max-horizon-seconds:15}") long maxHorizonSeconds,
+            @Value("${driver.prediction.max-deviation-meters:20}") double maxDeviationMeters,
+            @Value("${driver.prediction.min-speed-kmh:5}") double minSpeedKmh,
+            @Value("${driver.prediction.max-heading-change-degrees:15}") double maxHeadingChangeDegrees,
+            @Value("${driver.prediction.broadcast-keep-alive-seconds:10}") long broadcastKeepAliveSeconds) {
+        this(meterRegistry, enabled, maxHorizonSeconds, maxDeviationMeters, minSpeedKmh, maxHeadingChangeDegrees,
+                broadcastKeepAliveSeconds, System::currentTimeMillis);
+    }
+
+    MotionPredictor(MeterRegistry meterRegistry, boolean enabled, long maxHorizonSeconds, double maxDeviationMeters,
+            double minSpeedKmh, double maxHeadingChangeDegrees, long broadcastKeepAliveSeconds, LongSupplier clock) {
+        this.enabled = enabled;
+        this.maxHorizonMillis = TimeUnit.SECONDS.toMillis(maxHorizonSeconds);
+        this.maxDeviationMeters = maxDeviationMeters;
+        this.minSpeedMps = minSpeedKmh * KMH_TO_MPS;
+        this.maxHeadingChangeDegrees = maxHeadingChangeDegrees;
+        this.broadcastKeepAliveMillis = TimeUnit.SECONDS.toMillis(broadcastKeepAliveSeconds);
+        this.clock = clock;
+
+        Gauge.builder("driver.prediction.tracked", motions, Map::size)
+                .description("Drivers with a motion state")
+                .register(meterRegistry);
+        this.predictedCounter = Counter.builder("driver.prediction.requests")
+                .tag("result", "predicted")
+                .register(meterRegistry);
+        this.unavailableCounter = Counter.builder("driver.prediction.requests")
+                .tag("result", "unavailable")
+                .register(meterRegistry);
+        this.broadcastSkippedCounter = Counter.builder("driver.prediction.broadcasts.skipped")
+                .description("Tile broadcasts skipped because clients extrapolate the driver close enough")
+                .register(meterRegistry);
+        this.deviationSummary = DistributionSummary.builder("driver.prediction.deviation")
+                .description("Distance between a new fix and the position predicted for it")
+                .baseUnit("meters")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Make an accepted fix the new basis for predictions of the driver.
+     */
+    public void record(long driverId, double latitude, double longitude, Double heading, Double speedKmh) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.getAsLong();
+        Motion previous = motions.get(driverId);
+        if (previous != null && previous.isMoving()) {
+            double[] predicted = previous.extrapolate(now, maxHorizonMillis);
+            deviationSummary.record(GeoUtils.distanceMeters(predicted[0], predicted[1], latitude, longitude));
+        }
+        motions.put(driverId, motion(latitude, longitude, heading, speedKmh, now));
+    }
+
+    /**
+     * Whether a fix has to be broadcast. It can be skipped while map clients,
+     * extrapolating the last broadcast fix of the moving driver, show it less
+     * than {@code max-deviation-meters} away, it did not turn and the last
+     * broadcast is younger than {@code broadcast-keep-alive-seconds}. A fix that
+     * is broadcast becomes the new basis.
+     */
+    public boolean shouldBroadcast(long driverId, double latitude, double longitude, Double heading,
+            Double speedKmh) {
+        if (!enabled) {
+            return true;
+        }
+        long now = clock.getAsLong();
+        Motion shown = broadcastMotions.get(driverId);
+        if (shown != null && shown.isMoving() && now - shown.fixedAtMillis() < broadcastKeepAliveMillis
+                && heading != null && headingChange(Math.toDegrees(shown.headingRadians()), heading)
+                        < maxHeadingChangeDegrees) {
+            double[] predicted = shown.extrapolate(now, maxHorizonMillis);
+            if (GeoUtils.distanceMeters(predicted[0], predicted[1], latitude, longitude) < maxDeviationMeters) {
+                broadcastSkippedCounter.increment();
+                return false;
+            }
+        }
+        broadcastMotions.put(driverId, motion(latitude, longitude, heading, speedKmh, now));
+        return true;
+    }
+
+    /**
+     * Make a fix that is broadcast regardless of {@link #shouldBroadcast} the
+     * new basis of what map clients show.
+     */
+    public void recordBroadcast(long driverId, double latitude, double longitude, Double heading,
+            Double speedKmh) {
+        if (enabled) {
+            broadcastMotions.put(driverId, motion(latitude, longitude, heading, speedKmh, clock.getAsLong()));
+        }
+    }
+
+    public void forget(long driverId) {
+        motions.remove(driverId);
+        broadcastMotions.remove(driverId);
+    }
+
+    /**
+     * @return the extrapolated position of a moving driver now, or {@code null} if
+     *         the driver is unknown or not moving
+     */
+    public PredictedPosition predict(long driverId) {
+        Motion motion = enabled ? motions.get(driverId) : null;
+        if (motion == null || !motion.isMoving()) {
+            unavailableCounter.increment();
+            return null;
+        }
+        predictedCounter.increment();
+        long now = clock.getAsLong();
+        double[] position = motion.extrapolate(now, maxHorizonMillis);
+        return new PredictedPosition(position[0], position[1], now - motion.fixedAtMillis());
+    }
+
+    /**
+     * Drop the states of drivers that stopped sending; past the horizon they
+     * would only repeat their last fix.
+     */
+    @Scheduled(fixedDelayString = "${driver.prediction.eviction-interval-ms:60000}")
+    public void evictStale() {
+        long cutoff = clock.getAsLong() - maxHorizonMillis;
+        motions.values().removeIf(motion -> motion.fixedAtMillis() < cutoff);
+        broadcastMotions.values().removeIf(motion -> motion.fixedAtMillis() < cutoff);
+    }
+
+    private Motion motion(double latitude, double longitude, Double heading, Double speedKmh, long now) {
+        double speedMps = speedKmh != null ? speedKmh * KMH_TO_MPS : 0;
+        boolean moving = heading != null && speedMps >= minSpeedMps;
+        return new Motion(latitude, longitude, moving ? Math.toRadians(heading) : 0, moving ? speedMps : 0, now);
+    }
+
+    private static double headingChange(double from, double to) {
+        double change = Math.abs(from - to) % 360;
+        return change > 180 ? 360 - change : change;
+    }
+
+    private record Motion(double latitude, double longitude, double headingRadians, double speedMps,
+            long fixedAtMillis) {
+
+        boolean isMoving() {
+            return speedMps > 0;
+        }
+
+        /**
+         * Flat-earth projection along the heading, accurate over the few hundred
+         * meters covered within the horizon.
+         */
+        double[] extrapolate(long now, long maxHorizonMillis) {
+            long elapsed = Math.max(0, Math.min(now - fixedAtMillis, maxHorizonMillis));
+            double distance = speedMps * elapsed / 1000.0;
+            double north = distance * Math.cos(headingRadians);
+            double east = distance * Math.sin(headingRadians);
+            return new double[] {
+                    latitude + north / GeoUtils.METERS_PER_DEGREE,
+                    longitude + east / GeoUtils.metersPerDegreeLongitude(latitude)
+            };
+        }
+    }
+}
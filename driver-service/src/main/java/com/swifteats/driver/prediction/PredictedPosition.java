@@ -0,0 +1,12 @@
+package com.swifteats.driver.prediction;
+
+/**
+ * A driver position extrapolated from the last fix.
+ *
+ * @param elapsedMillis time since the fix the prediction is based on
+ */
+public record PredictedPosition(
+        double latitude,
+        double longitude,
+        long elapsedMillis) {
+}
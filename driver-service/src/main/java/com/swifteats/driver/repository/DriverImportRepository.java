@@ -0,0 +1,73 @@
+package com.swifteats.driver.repository;
+
+import com.swifteats.driver.model.Driver;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plain JDBC writer for bulk driver imports. The entity's identity column
+ * forces Hibernate to insert drivers one statement at a time, so IDs are
+ * instead taken from the column's sequence for a whole batch in one query and
+ * the rows are sent as a single JDBC batch.
+ *
+ * <p>Rows conflicting with an existing email are skipped by the database; the
+ * IDs that were actually inserted are read back in the same transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DriverImportRepository {
+
+    private static final String ALLOCATE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('drivers', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT_SQL = "INSERT INTO drivers "
+            + "(id, name, email, phone, vehicle_type, vehicle_plate, status, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String FIND_IDS_SQL = "SELECT id FROM drivers WHERE id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Long> allocateIds(int count) {
+        return jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, count);
+    }
+
+    /**
+     * Insert drivers with preallocated IDs.
+     *
+     * @return the IDs of the drivers that were inserted
+     */
+    @Transactional
+    public Set<Long> insertAll(List<Driver> drivers) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, drivers, drivers.size(), (ps, driver) -> {
+            ps.setLong(1, driver.getId());
+            ps.setString(2, driver.getName());
+            ps.setString(3, driver.getEmail());
+            ps.setString(4, driver.getPhone());
+            ps.setString(5, driver.getVehicleType());
+            ps.setString(6, driver.getVehiclePlate());
+            ps.setString(7, driver.getStatus().name());
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+        });
+
+        // Update counts of rewritten batches carry no per-row information
+        Long[] ids = drivers.stream().map(Driver::getId).toArray(Long[]::new);
+        Set<Long> inserted = new HashSet<>();
+        jdbcTemplate.query(FIND_IDS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> {
+                    inserted.add(rs.getLong(1));
+                });
+        return inserted;
+    }
+}
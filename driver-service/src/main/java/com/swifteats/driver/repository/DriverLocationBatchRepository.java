@@ -0,0 +1,82 @@
+package com.swifteats.driver.repository;
+
+import com.swifteats.driver.model.LocationSample;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC writer for {@code driver_locations}. Rows are sent as a single
+ * JDBC batch, which the PostgreSQL driver rewrites into multi-row inserts
+ * when {@code reWriteBatchedInserts} is enabled on the connection URL.
+ *
+ * <p>The same transaction refreshes the denormalized current-location columns
+ * on {@code drivers} with the newest point of each driver in the batch.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DriverLocationBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO driver_locations "
+            + "(driver_id, latitude, longitude, heading, speed, accuracy, timestamp) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_CURRENT_LOCATION_SQL = "UPDATE drivers SET "
+            + "current_latitude = ?, current_longitude = ?, current_heading = ?, current_speed = ?, "
+            + "current_accuracy = ?, current_location_at = ? "
+            + "WHERE id = ? AND (current_location_at IS NULL OR current_location_at <= ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public void saveAll(List<LocationSample> samples) {
+        insertAll(samples);
+        updateCurrentLocations(samples);
+    }
+
+    @Transactional
+    public void insertAll(List<LocationSample> samples) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, samples, samples.size(), (ps, sample) -> {
+            ps.setLong(1, sample.driverId());
+            ps.setDouble(2, sample.latitude());
+            ps.setDouble(3, sample.longitude());
+            ps.setObject(4, sample.heading(), Types.DOUBLE);
+            ps.setObject(5, sample.speed(), Types.DOUBLE);
+            ps.setObject(6, sample.accuracy(), Types.DOUBLE);
+            ps.setTimestamp(7, Timestamp.valueOf(sample.timestamp()));
+        });
+    }
+
+    /**
+     * Upsert the current-location columns with the newest sample of each driver.
+     * Rows already holding a newer position are left untouched.
+     */
+    @Transactional
+    public void updateCurrentLocations(List<LocationSample> samples) {
+        Map<Long, LocationSample> latestByDriver = new HashMap<>();
+        for (LocationSample sample : samples) {
+            latestByDriver.merge(sample.driverId(), sample,
+                    (current, candidate) -> candidate.timestamp().isBefore(current.timestamp()) ? current : candidate);
+        }
+
+        List<LocationSample> latest = List.copyOf(latestByDriver.values());
+        jdbcTemplate.batchUpdate(UPDATE_CURRENT_LOCATION_SQL, latest, latest.size(), (ps, sample) -> {
+            Timestamp timestamp = Timestamp.valueOf(sample.timestamp());
+            ps.setDouble(1, sample.latitude());
+            ps.setDouble(2, sample.longitude());
+            ps.setObject(3, sample.heading(), Types.DOUBLE);
+            ps.setObject(4, sample.speed(), Types.DOUBLE);
+            ps.setObject(5, sample.accuracy(), Types.DOUBLE);
+            ps.setTimestamp(6, timestamp);
+            ps.setLong(7, sample.driverId());
+            ps.setTimestamp(8, timestamp);
+        });
+    }
+}
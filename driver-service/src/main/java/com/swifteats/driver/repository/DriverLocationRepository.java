@@ -1,13 +1,19 @@
 package com.swifteats.driver.repository;
 
+import com.swifteats.driver.dto.LocationDTO;
 import com.swifteats.driver.model.DriverLocation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface DriverLocationRepository extends JpaRepository<DriverLocation, Long> {
@@ -20,6 +26,36 @@ public interface DriverLocationRepository extends JpaRepository<DriverLocation,
             @Param("driverId") Long driverId,
             @Param("startTime") LocalDateTime startTime);
 
+    /**
+     * Stream the history as DTO projections through a server-side cursor, so rows
+     * can be processed while they are read without filling the persistence
+     * context. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.swifteats.driver.dto.LocationDTO(dl.id, dl.driver.id, dl.latitude, dl.longitude, " +
+            "dl.heading, dl.speed, dl.accuracy, dl.timestamp) FROM DriverLocation dl " +
+            "WHERE dl.driver.id = :driverId AND dl.timestamp >= :startTime ORDER BY dl.timestamp ASC")
+    Stream<LocationDTO> streamDriverLocationHistory(
+            @Param("driverId") Long driverId,
+            @Param("startTime") LocalDateTime startTime);
+
+    /**
+     * One page of history in {@code (timestamp, id)} order, starting strictly after
+     * the given keyset position. Served by the {@code (driver_id, timestamp, id)}
+     * index, so every page costs the same however deep it is.
+     */
+    @Query("SELECT new com.swifteats.driver.dto.LocationDTO(dl.id, dl.driver.id, dl.latitude, dl.longitude, " +
+            "dl.heading, dl.speed, dl.accuracy, dl.timestamp) FROM DriverLocation dl " +
+            "WHERE dl.driver.id = :driverId AND dl.timestamp < :endTime " +
+            "AND (dl.timestamp > :afterTimestamp OR (dl.timestamp = :afterTimestamp AND dl.id > :afterId)) " +
+            "ORDER BY dl.timestamp ASC, dl.id ASC")
+    List<LocationDTO> findDriverLocationHistoryPage(
+            @Param("driverId") Long driverId,
+            @Param("afterTimestamp") LocalDateTime afterTimestamp,
+            @Param("afterId") Long afterId,
+            @Param("endTime") LocalDateTime endTime,
+            Limit limit);
+
     @Query("SELECT dl FROM DriverLocation dl WHERE dl.driver.id = :driverId " +
             "ORDER BY dl.timestamp DESC LIMIT 1")
     DriverLocation findLatestLocationByDriverId(@Param("driverId") Long driverId);
@@ -0,0 +1,55 @@
+package com.swifteats.driver.repository;
+
+import com.swifteats.driver.model.LocationSegmentBlock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Plain JDBC access to {@code driver_location_segments}, which holds one row
+ * per driver and time segment with the segment's points as an encoded blob.
+ * New points are appended by concatenating an encoded block to the stored
+ * blob, so a write never reads the segment back.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DriverLocationSegmentRepository {
+
+    private static final String APPEND_SQL = "INSERT INTO driver_location_segments "
+            + "(driver_id, segment_start, point_count, data) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (driver_id, segment_start) DO UPDATE SET "
+            + "point_count = driver_location_segments.point_count + EXCLUDED.point_count, "
+            + "data = driver_location_segments.data || EXCLUDED.data";
+
+    private static final String FIND_SQL = "SELECT segment_start, point_count, data FROM driver_location_segments "
+            + "WHERE driver_id = ? AND segment_start >= ? AND segment_start < ? ORDER BY segment_start LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public void appendAll(List<LocationSegmentBlock> blocks) {
+        jdbcTemplate.batchUpdate(APPEND_SQL, blocks, blocks.size(), (ps, block) -> {
+            ps.setLong(1, block.driverId());
+            ps.setTimestamp(2, Timestamp.valueOf(block.segmentStart()));
+            ps.setInt(3, block.pointCount());
+            ps.setBytes(4, block.data());
+        });
+    }
+
+    /**
+     * Up to {@code limit} segments of a driver starting in {@code [from, until)},
+     * in segment order. Served by the primary key.
+     */
+    public List<LocationSegmentBlock> findSegments(long driverId, LocalDateTime from, LocalDateTime until,
+            int limit) {
+        return jdbcTemplate.query(FIND_SQL,
+                (rs, rowNum) -> new LocationSegmentBlock(driverId, rs.getTimestamp(1).toLocalDateTime(),
+                        rs.getInt(2), rs.getBytes(3)),
+                driverId, Timestamp.valueOf(from), Timestamp.valueOf(until), limit);
+    }
+}
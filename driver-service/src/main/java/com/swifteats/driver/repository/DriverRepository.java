@@ -3,10 +3,12 @@ package com.swifteats.driver.repository;
 import com.swifteats.driver.model.Driver;
 import com.swifteats.driver.model.DriverStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -20,6 +22,15 @@ public interface DriverRepository extends JpaRepository<Driver, Long> {
     // layer
     List<Driver> findByStatus(DriverStatus status);
 
+    // Compare-and-set on the status column; returns the number of rows changed
+    @Modifying
+    @Query("UPDATE Driver d SET d.status = :newStatus, d.updatedAt = :updatedAt "
+            + "WHERE d.id = :id AND d.status = :expectedStatus")
+    int updateStatusIfCurrent(@Param("id") Long id,
+            @Param("expectedStatus") DriverStatus expectedStatus,
+            @Param("newStatus") DriverStatus newStatus,
+            @Param("updatedAt") LocalDateTime updatedAt);
+
     // This is a dummy implementation to satisfy Spring Data JPA's reflection
     // mechanism
     // It will never be called in our code
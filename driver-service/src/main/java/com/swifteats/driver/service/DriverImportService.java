@@ -0,0 +1,314 @@
+package com.swifteats.driver.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swifteats.driver.dto.DriverDTO;
+import com.swifteats.driver.dto.DriverImportResultDTO;
+import com.swifteats.driver.dto.DriverImportResultDTO.Status;
+import com.swifteats.driver.model.Driver;
+import com.swifteats.driver.model.DriverStatus;
+import com.swifteats.driver.repository.DriverImportRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk import of drivers from NDJSON (one {@link DriverDTO} per
+ * line) or CSV (a header row naming the {@link DriverDTO} fields, then one
+ * driver per row). Rows are validated one by one and inserted in JDBC batches
+ * of {@code batch-size}; the outcome of every row is written as one NDJSON
+ * {@link DriverImportResultDTO} line once its batch is stored. Only one batch
+ * is held in memory, whatever the size of the upload.
+ */
+@Service
+@Slf4j
+public class DriverImportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final List<String> CSV_FIELDS =
+            List.of("name", "email", "phone", "vehicletype", "vehicleplate", "status");
+
+    private final DriverImportRepository importRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+
+    private final Map<Status, Counter> counters = new EnumMap<>(Status.class);
+
+    public DriverImportService(
+            DriverImportRepository importRepository,
+            ObjectMapper objectMapper,
+            Validator validator,
+            MeterRegistry meterRegistry,
+            @Value("${driver.import.batch-size:1000}") int batchSize) {
+        this.importRepository = importRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = Math.max(1, batchSize);
+
+        for (Status status : Status.values()) {
+            counters.put(status, Counter.builder("driver.import.rows")
+                    .tag("result", status.name().toLowerCase())
+                    .description("Imported driver rows by outcome")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Import the drivers read from {@code input} and write one result line per
+     * row to {@code output}.
+     *
+     * @return the number of drivers created
+     */
+    public long importDrivers(InputStream input, Format format, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        OutputStream out = new BufferedOutputStream(output, 64 * 1024);
+        Batch batch = new Batch();
+        long created = 0;
+
+        long lineNumber = 0;
+        int[] columns = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && columns == null) {
+                columns = parseCsvHeader(line);
+                continue;
+            }
+
+            try {
+                DriverDTO row = format == Format.CSV ? parseCsvRow(line, columns) : parseJsonRow(line);
+                if (row.getStatus() == null) {
+                    row.setStatus(DriverStatus.OFFLINE);
+                }
+                String violations = validate(row);
+                if (violations != null) {
+                    batch.reject(lineNumber, violations);
+                } else {
+                    batch.add(lineNumber, toEntity(row));
+                }
+            } catch (IllegalArgumentException e) {
+                batch.reject(lineNumber, e.getMessage());
+            }
+
+            if (batch.size() >= batchSize) {
+                created += flush(batch, out);
+            }
+        }
+        created += flush(batch, out);
+        out.flush();
+
+        log.info("Imported {} drivers from {} lines", created, lineNumber);
+        return created;
+    }
+
+    private long flush(Batch batch, OutputStream out) throws IOException {
+        if (!batch.drivers.isEmpty()) {
+            store(batch);
+        }
+
+        long created = 0;
+        for (DriverImportResultDTO result : batch.results) {
+            counters.get(result.getStatus()).increment();
+            if (result.getStatus() == Status.CREATED) {
+                created++;
+            }
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+        batch.clear();
+        return created;
+    }
+
+    private void store(Batch batch) {
+        try {
+            List<Long> ids = importRepository.allocateIds(batch.drivers.size());
+            for (int i = 0; i < ids.size(); i++) {
+                batch.drivers.get(i).setId(ids.get(i));
+            }
+            Set<Long> inserted = importRepository.insertAll(batch.drivers);
+
+            Iterator<Driver> drivers = batch.drivers.iterator();
+            for (DriverImportResultDTO result : batch.results) {
+                if (result.getStatus() == null) {
+                    Long id = drivers.next().getId();
+                    if (inserted.contains(id)) {
+                        result.setDriverId(id);
+                        result.setStatus(Status.CREATED);
+                    } else {
+                        result.setStatus(Status.DUPLICATE);
+                    }
+                }
+            }
+        } catch (DataAccessException e) {
+            log.error("Failed to insert a batch of {} drivers: {}", batch.drivers.size(), e.getMessage());
+            for (DriverImportResultDTO result : batch.results) {
+                if (result.getStatus() == null) {
+                    result.setStatus(Status.REJECTED);
+                    result.setError("Insert failed");
+                }
+            }
+        }
+    }
+
+    private DriverDTO parseJsonRow(String line) {
+        try {
+            return objectMapper.readValue(line, DriverDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Position of each known field in the CSV rows, or -1 if absent.
+     */
+    private static int[] parseCsvHeader(String line) {
+        List<String> header = parseCsvLine(line);
+        int[] columns = new int[CSV_FIELDS.size()];
+        for (int field = 0; field < columns.length; field++) {
+            columns[field] = -1;
+        }
+        for (int i = 0; i < header.size(); i++) {
+            int field = CSV_FIELDS.indexOf(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT));
+            if (field >= 0) {
+                columns[field] = i;
+            }
+        }
+        return columns;
+    }
+
+    private static DriverDTO parseCsvRow(String line, int[] columns) {
+        List<String> values = parseCsvLine(line);
+        String status = csvValue(values, columns[5]);
+        try {
+            return DriverDTO.builder()
+                    .name(csvValue(values, columns[0]))
+                    .email(csvValue(values, columns[1]))
+                    .phone(csvValue(values, columns[2]))
+                    .vehicleType(csvValue(values, columns[3]))
+                    .vehiclePlate(csvValue(values, columns[4]))
+                    .status(status != null ? DriverStatus.valueOf(status.toUpperCase(Locale.ROOT)) : null)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown status: " + status);
+        }
+    }
+
+    private static String csvValue(List<String> values, int column) {
+        if (column < 0 || column >= values.size()) {
+            return null;
+        }
+        String value = values.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Split one CSV line. Fields may be double-quoted, with {@code ""} for a
+     * quote inside a quoted field; quoted line breaks are not supported.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private String validate(DriverDTO row) {
+        Set<ConstraintViolation<DriverDTO>> violations = validator.validate(row);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static Driver toEntity(DriverDTO row) {
+        return Driver.builder()
+                .name(row.getName())
+                .email(row.getEmail())
+                .phone(row.getPhone())
+                .vehicleType(row.getVehicleType())
+                .vehiclePlate(row.getVehiclePlate())
+                .status(row.getStatus())
+                .build();
+    }
+
+    /**
+     * Results of the rows read since the last flush, in line order. Rows still
+     * to be inserted have no status yet and map, in order, to {@link #drivers}.
+     */
+    private static final class Batch {
+        private final List<DriverImportResultDTO> results = new ArrayList<>();
+        private final List<Driver> drivers = new ArrayList<>();
+
+        void add(long line, Driver driver) {
+            results.add(DriverImportResultDTO.builder().line(line).build());
+            drivers.add(driver);
+        }
+
+        void reject(long line, String error) {
+            results.add(DriverImportResultDTO.builder().line(line).status(Status.REJECTED).error(error).build());
+        }
+
+        int size() {
+            return results.size();
+        }
+
+        void clear() {
+            results.clear();
+            drivers.clear();
+        }
+    }
+}
@@ -1,29 +1,66 @@
 package com.swifteats.driver.service;
 
+import com.swifteats.driver.cache.LocationNearCache;
+import com.swifteats.driver.cache.NearbyQueryCache;
+import com.swifteats.driver.cache.RecentTrackCache;
+import com.swifteats.driver.dto.BatchLocationUpdateResultDTO;
 import com.swifteats.driver.dto.DriverDTO;
 import com.swifteats.driver.dto.DriverStatusUpdateDTO;
+import com.swifteats.driver.dto.EtaDTO;
 import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.dto.LocationHistorySamplingDTO;
 import com.swifteats.driver.dto.LocationUpdateDTO;
+import com.swifteats.driver.dto.LocationUpdateResultDTO;
+import com.swifteats.driver.dto.NearestDriverDTO;
+import com.swifteats.driver.dto.SupplyDensityDTO;
+import com.swifteats.driver.eta.EtaEstimator;
+import com.swifteats.driver.geofence.GeofenceService;
 import com.swifteats.driver.model.Driver;
+import com.swifteats.driver.model.DriverCurrentLocation;
 import com.swifteats.driver.model.DriverLocation;
 import com.swifteats.driver.model.DriverStatus;
+import com.swifteats.driver.model.LocationSample;
+import com.swifteats.driver.prediction.MotionPredictor;
+import com.swifteats.driver.prediction.PredictedPosition;
 import com.swifteats.driver.repository.DriverLocationRepository;
 import com.swifteats.driver.repository.DriverRepository;
+import com.swifteats.driver.spatial.DriverSpatialIndex;
+import com.swifteats.driver.spatial.LocationTrackSampler;
+import com.swifteats.driver.spatial.NearbyDriver;
+import com.swifteats.driver.spatial.NearbyDriverSearch;
+import com.swifteats.driver.spatial.SupplyDensity;
+import com.swifteats.driver.spatial.TileCoordinates;
+import com.swifteats.driver.storage.LocationSegmentStore;
+import com.swifteats.driver.websocket.DriverLocationBroadcaster;
+import com.swifteats.driver.websocket.StompSubscriptionTracker;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -34,10 +71,27 @@ public class DriverService {
     private final DriverLocationRepository locationRepository;
     private final RedisTemplate<String, LocationDTO> locationRedisTemplate;
     private final SimpMessagingTemplate messagingTemplate;
+    private final DriverSpatialIndex spatialIndex;
+    private final NearbyDriverSearch nearbySearch;
+    private final LocationWriteBehindService writeBehindService;
+    private final DriverLocationBroadcaster locationBroadcaster;
+    private final LocationNearCache nearCache;
+    private final LocationIngestionFilter ingestionFilter;
+    private final EtaEstimator etaEstimator;
+    private final GeofenceService geofenceService;
+    private final LocationSegmentStore segmentStore;
+    private final RecentTrackCache recentTracks;
+    private final StompSubscriptionTracker subscriptionTracker;
+    private final MotionPredictor motionPredictor;
+    private final NearbyQueryCache nearbyQueryCache;
 
     private static final String DRIVER_LOCATION_KEY_PREFIX = "driver:location:";
     private static final long LOCATION_CACHE_EXPIRATION = 30; // 30 seconds
 
+    // Zoom level of the map tile topics locations are published to
+    @Value("${driver.broadcast.tile-zoom:14}")
+    private int tileZoom;
+
     @Transactional
     public DriverDTO createDriver(DriverDTO driverDTO) {
         Driver driver = convertToEntity(driverDTO);
@@ -59,40 +113,202 @@ public class DriverService {
                 .map(this::convertToDTO);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @CircuitBreaker(name = "driverService", fallbackMethod = "updateLocationFallback")
     public LocationDTO updateDriverLocation(LocationUpdateDTO locationUpdate) {
-        Driver driver = driverRepository.findById(locationUpdate.getDriverId())
-                .orElseThrow(() -> new RuntimeException("Driver not found with id: " + locationUpdate.getDriverId()));
+        Long driverId = locationUpdate.getDriverId();
 
-        DriverLocation location = DriverLocation.builder()
-                .driver(driver)
-                .latitude(locationUpdate.getLatitude())
-                .longitude(locationUpdate.getLongitude())
-                .heading(locationUpdate.getHeading())
-                .speed(locationUpdate.getSpeed())
-                .accuracy(locationUpdate.getAccuracy())
-                .timestamp(LocalDateTime.now())
-                .build();
+        // Drivers already tracked by the spatial index are known to exist
+        boolean available = spatialIndex.availability(driverId)
+                .orElseGet(() -> driverRepository.findById(driverId)
+                        .map(driver -> driver.getStatus() == DriverStatus.AVAILABLE)
+                        .orElseThrow(() -> new RuntimeException("Driver not found with id: " + driverId)));
+
+        // Stationary and out-of-order updates change nothing downstream
+        if (!ingestionFilter.apply(locationUpdate).isAccepted()) {
+            return null;
+        }
 
-        location = locationRepository.save(location);
-        driver.addLocationUpdate(location);
+        LocationSample sample = new LocationSample(
+                driverId,
+                locationUpdate.getLatitude(),
+                locationUpdate.getLongitude(),
+                locationUpdate.getHeading(),
+                locationUpdate.getSpeed(),
+                locationUpdate.getAccuracy(),
+                LocalDateTime.now());
 
-        LocationDTO locationDTO = convertToLocationDTO(location);
+        // Update the hot state first; the row itself is persisted by the write-behind flusher
+        trackLocation(sample, available);
+        writeBehindService.enqueue(sample);
+        ingestionFilter.commit(locationUpdate);
+
+        LocationDTO locationDTO = convertToLocationDTO(sample);
 
         // Cache the location in Redis for fast retrieval
-        String redisKey = DRIVER_LOCATION_KEY_PREFIX + driver.getId();
+        String redisKey = DRIVER_LOCATION_KEY_PREFIX + driverId;
         locationRedisTemplate.opsForValue().set(redisKey, locationDTO, LOCATION_CACHE_EXPIRATION, TimeUnit.SECONDS);
+        nearCache.update(driverId, locationDTO);
 
-        // Broadcast location update through WebSocket
-        messagingTemplate.convertAndSend("/topic/driver/" + driver.getId() + "/location", locationDTO);
+        // Broadcast location update through WebSocket on the next broadcaster tick
+        locationBroadcaster.publish(locationDTO, mapTile(sample, available));
 
         return locationDTO;
     }
 
+    /**
+     * Apply a batch of location updates with one driver lookup, one write-behind
+     * hand-off, one Redis pipeline and one hand-off to the broadcaster. Updates for
+     * unknown drivers are rejected individually without failing the batch.
+     */
+    @Transactional(readOnly = true)
+    public BatchLocationUpdateResultDTO updateDriverLocationBatch(List<LocationUpdateDTO> locationUpdates) {
+        Map<Long, Boolean> availabilityByDriver = resolveAvailability(locationUpdates);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<LocationSample> samples = new ArrayList<>(locationUpdates.size());
+        Map<Long, LocationDTO> latestByDriver = new LinkedHashMap<>();
+        List<LocationUpdateResultDTO> results = new ArrayList<>(locationUpdates.size());
+        int filtered = 0;
+
+        for (int i = 0; i < locationUpdates.size(); i++) {
+            LocationUpdateDTO update = locationUpdates.get(i);
+            Long driverId = update.getDriverId();
+            Boolean available = availabilityByDriver.get(driverId);
+
+            if (available == null) {
+                results.add(LocationUpdateResultDTO.builder()
+                        .index(i)
+                        .driverId(driverId)
+                        .status(LocationUpdateResultDTO.Status.REJECTED)
+                        .error("Driver not found with id: " + driverId)
+                        .build());
+                continue;
+            }
+
+            if (!ingestionFilter.apply(update).isAccepted()) {
+                filtered++;
+                results.add(LocationUpdateResultDTO.builder()
+                        .index(i)
+                        .driverId(driverId)
+                        .status(LocationUpdateResultDTO.Status.FILTERED)
+                        .build());
+                continue;
+            }
+
+            LocationSample sample = new LocationSample(driverId, update.getLatitude(), update.getLongitude(),
+                    update.getHeading(), update.getSpeed(), update.getAccuracy(), now);
+            trackLocation(sample, available);
+            // Committed per point, so later points of the same driver in the batch compare against it
+            ingestionFilter.commit(update);
+            samples.add(sample);
+
+            LocationDTO locationDTO = convertToLocationDTO(sample);
+            latestByDriver.put(driverId, locationDTO);
+            locationBroadcaster.publish(locationDTO, mapTile(sample, available));
+
+            results.add(LocationUpdateResultDTO.builder()
+                    .index(i)
+                    .driverId(driverId)
+                    .status(LocationUpdateResultDTO.Status.ACCEPTED)
+                    .build());
+        }
+
+        if (!samples.isEmpty()) {
+            writeBehindService.enqueueAll(samples);
+            cacheLocations(latestByDriver);
+            latestByDriver.forEach(nearCache::update);
+        }
+
+        return BatchLocationUpdateResultDTO.builder()
+                .accepted(samples.size())
+                .filtered(filtered)
+                .rejected(locationUpdates.size() - samples.size() - filtered)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Availability of every driver referenced by the batch. Drivers already in the
+     * spatial index are resolved in memory; the rest are loaded with a single
+     * query. Unknown drivers are absent from the result.
+     */
+    private Map<Long, Boolean> resolveAvailability(List<LocationUpdateDTO> locationUpdates) {
+        Map<Long, Boolean> availabilityByDriver = new HashMap<>();
+        Set<Long> unresolved = new HashSet<>();
+
+        for (LocationUpdateDTO update : locationUpdates) {
+            Long driverId = update.getDriverId();
+            if (!availabilityByDriver.containsKey(driverId)) {
+                spatialIndex.availability(driverId).ifPresentOrElse(
+                        available -> availabilityByDriver.put(driverId, available),
+                        () -> unresolved.add(driverId));
+            }
+        }
+
+        if (!unresolved.isEmpty()) {
+            driverRepository.findAllById(unresolved).forEach(driver -> availabilityByDriver.put(
+                    driver.getId(), driver.getStatus() == DriverStatus.AVAILABLE));
+        }
+        return availabilityByDriver;
+    }
+
+    /**
+     * Feed an accepted point to the in-memory state: the recent tracks, the ETA
+     * estimator, the motion predictor and the geofences, then the spatial index,
+     * which is always maintained and also feeds the density counters, and the
+     * configured nearby-search backend when that is a different one.
+     */
+    private void trackLocation(LocationSample sample, boolean available) {
+        recentTracks.record(sample);
+        etaEstimator.record(sample.driverId(), sample.latitude(), sample.longitude(), sample.speed());
+        motionPredictor.record(sample.driverId(), sample.latitude(), sample.longitude(), sample.heading(),
+                sample.speed());
+        geofenceService.onLocation(sample.driverId(), sample.latitude(), sample.longitude());
+        long timestampMillis = toEpochMillis(sample.timestamp());
+        spatialIndex.updateLocation(sample.driverId(), sample.latitude(), sample.longitude(), available,
+                timestampMillis);
+        if (nearbySearch != spatialIndex) {
+            nearbySearch.updateLocation(sample.driverId(), sample.latitude(), sample.longitude(), available,
+                    timestampMillis);
+        }
+    }
+
+    private void trackAvailability(long driverId, boolean available) {
+        spatialIndex.updateAvailability(driverId, available);
+        if (nearbySearch != spatialIndex) {
+            nearbySearch.updateAvailability(driverId, available);
+        }
+        if (!available) {
+            locationBroadcaster.removeFromTiles(driverId);
+        }
+    }
+
+    // Map tiles only show drivers that can be dispatched
+    private TileCoordinates mapTile(LocationSample sample, boolean available) {
+        return available ? TileCoordinates.of(sample.latitude(), sample.longitude(), tileZoom) : null;
+    }
+
+    /**
+     * Write the latest location of several drivers to Redis in one pipelined round trip.
+     */
+    @SuppressWarnings("unchecked")
+    private void cacheLocations(Map<Long, LocationDTO> locationsByDriver) {
+        locationRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, LocationDTO> redisOperations = (RedisOperations<String, LocationDTO>) operations;
+                locationsByDriver.forEach((driverId, location) -> redisOperations.opsForValue().set(
+                        DRIVER_LOCATION_KEY_PREFIX + driverId, location, LOCATION_CACHE_EXPIRATION, TimeUnit.SECONDS));
+                return null;
+            }
+        });
+    }
+
     public LocationDTO updateLocationFallback(LocationUpdateDTO locationUpdate, Throwable t) {
         log.error("Circuit breaker triggered for driver location update: {}", t.getMessage());
         return LocationDTO.builder()
+                .driverId(locationUpdate.getDriverId())
                 .latitude(locationUpdate.getLatitude())
                 .longitude(locationUpdate.getLongitude())
                 .timestamp(LocalDateTime.now())
@@ -101,12 +317,53 @@ public class DriverService {
 
     @Transactional(readOnly = true)
     public List<LocationDTO> getDriverLocationHistory(Long driverId, LocalDateTime startTime) {
+        // Recent windows are answered from the in-memory track without touching the database
+        List<LocationDTO> recent = recentTracks.findSince(driverId, startTime);
+        if (recent != null) {
+            return recent;
+        }
+        if (segmentStore.isEnabled()) {
+            return segmentStore.findHistory(driverId, startTime, null)
+                    .stream()
+                    .map(this::convertToLocationDTO)
+                    .collect(Collectors.toList());
+        }
         return locationRepository.findDriverLocationHistory(driverId, startTime)
                 .stream()
                 .map(this::convertToLocationDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Location history downsampled while the rows are streamed from the database,
+     * so only the points that survive sampling are ever held in memory.
+     */
+    @Transactional(readOnly = true)
+    public List<LocationDTO> getDriverLocationHistory(Long driverId, LocalDateTime startTime,
+            LocationHistorySamplingDTO sampling) {
+        if (sampling == null || !sampling.isEnabled()) {
+            return getDriverLocationHistory(driverId, startTime);
+        }
+
+        LocationTrackSampler sampler = new LocationTrackSampler(sampling);
+        List<LocationDTO> recent = recentTracks.findSince(driverId, startTime);
+        if (recent != null) {
+            recent.forEach(sampler::accept);
+            return sampler.finish();
+        }
+        if (segmentStore.isEnabled()) {
+            segmentStore.visitHistory(driverId, startTime, null, sample -> {
+                sampler.accept(convertToLocationDTO(sample));
+                return true;
+            });
+            return sampler.finish();
+        }
+        try (Stream<LocationDTO> points = locationRepository.streamDriverLocationHistory(driverId, startTime)) {
+            points.forEach(sampler::accept);
+        }
+        return sampler.finish();
+    }
+
     @Transactional
     public DriverDTO updateDriverStatus(DriverStatusUpdateDTO statusUpdate) {
         Driver driver = driverRepository.findById(statusUpdate.getDriverId())
@@ -114,90 +371,289 @@ public class DriverService {
 
         driver.setStatus(statusUpdate.getStatus());
         driver = driverRepository.save(driver);
+        trackAvailability(driver.getId(), driver.getStatus() == DriverStatus.AVAILABLE);
 
         // Broadcast status update through WebSocket
         DriverDTO driverDTO = convertToDTO(driver);
-        messagingTemplate.convertAndSend("/topic/driver/" + driver.getId() + "/status", driverDTO);
+        String statusTopic = "/topic/driver/" + driver.getId() + "/status";
+        if (subscriptionTracker.shouldSend(statusTopic)) {
+            messagingTemplate.convertAndSend(statusTopic, driverDTO);
+        }
 
         return driverDTO;
     }
 
+    /**
+     * Atomically move an available driver to BUSY.
+     *
+     * @return false if the driver does not exist or was no longer available
+     */
+    @Transactional
+    public boolean claimAvailableDriver(long driverId) {
+        int updated = driverRepository.updateStatusIfCurrent(driverId, DriverStatus.AVAILABLE, DriverStatus.BUSY,
+                LocalDateTime.now());
+        // Either way the driver must not be offered again
+        trackAvailability(driverId, false);
+        return updated == 1;
+    }
+
     @Transactional(readOnly = true)
     public List<DriverDTO> getAvailableDriversNearby(Double latitude, Double longitude, Double radiusInMeters) {
-        // Get all available drivers
-        List<Driver> availableDrivers = driverRepository.findByStatus(DriverStatus.AVAILABLE);
+        // Candidates and their driver rows are shared with nearby requests of the same window;
+        // the returned DTOs must therefore not be modified
+        return nearbyQueryCache.findAvailableNearby(latitude, longitude, radiusInMeters, this::loadNearbyDrivers);
+    }
 
-        // Filter drivers based on their location
-        return availableDrivers.stream()
-                .filter(driver -> isDriverNearby(driver, latitude, longitude, radiusInMeters))
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    private Map<Long, DriverDTO> loadNearbyDrivers(List<NearbyDriver> nearby) {
+        Map<Long, NearbyDriver> hitsById = new HashMap<>();
+        nearby.forEach(hit -> hitsById.put(hit.driverId(), hit));
+        return driverRepository.findAllById(hitsById.keySet())
+                .stream()
+                .collect(Collectors.toMap(Driver::getId, driver -> {
+                    NearbyDriver hit = hitsById.get(driver.getId());
+                    // Prefer the search hit, which may be newer than the last flushed position
+                    return hit.timestampMillis() > 0
+                            ? convertToDTO(driver, convertToLocationDTO(hit))
+                            : convertToDTO(driver);
+                }));
     }
 
-    private boolean isDriverNearby(Driver driver, Double latitude, Double longitude, Double radiusInMeters) {
-        // Get the most recent location from the driver's location history
-        if (driver.getLocationHistory() == null || driver.getLocationHistory().isEmpty()) {
-            return false;
+    /**
+     * Available drivers near a point, optionally with their positions
+     * extrapolated to now. Which drivers are nearby is still decided by their
+     * last fixes.
+     */
+    @Transactional(readOnly = true)
+    public List<DriverDTO> getAvailableDriversNearby(Double latitude, Double longitude, Double radiusInMeters,
+            boolean predicted) {
+        List<DriverDTO> drivers = getAvailableDriversNearby(latitude, longitude, radiusInMeters);
+        if (!predicted) {
+            return drivers;
         }
+        // Copies, since the cached DTOs are shared with other requests
+        return drivers.stream()
+                .map(driver -> driver.toBuilder()
+                        .currentLocation(withPredictedPosition(driver.getCurrentLocation()))
+                        .build())
+                .collect(Collectors.toList());
+    }
 
-        // Sort location history by timestamp to get the most recent location
-        DriverLocation latestLocation = driver.getLocationHistory().stream()
-                .sorted(Comparator.comparing(DriverLocation::getTimestamp).reversed())
-                .findFirst()
-                .orElse(null);
-
-        if (latestLocation == null) {
-            return false;
+    /**
+     * The {@code k} available drivers nearest to a point, closest first.
+     */
+    @Transactional(readOnly = true)
+    public List<NearestDriverDTO> getNearestAvailableDrivers(double latitude, double longitude, int k,
+            double maxRadiusInMeters) {
+        List<NearbyDriver> nearest = nearbySearch.findNearestAvailable(latitude, longitude, k, maxRadiusInMeters);
+        if (nearest.isEmpty()) {
+            return List.of();
         }
 
-        // Calculate distance using the Haversine formula
-        return calculateDistance(
-                latitude, longitude,
-                latestLocation.getLatitude(), latestLocation.getLongitude()) <= radiusInMeters;
+        Map<Long, Driver> driversById = driverRepository.findAllById(
+                nearest.stream().map(NearbyDriver::driverId).toList())
+                .stream()
+                .collect(Collectors.toMap(Driver::getId, Function.identity()));
+
+        return nearest.stream()
+                .filter(hit -> driversById.containsKey(hit.driverId()))
+                .map(hit -> {
+                    Driver driver = driversById.get(hit.driverId());
+                    DriverDTO driverDTO = hit.timestampMillis() > 0
+                            ? convertToDTO(driver, convertToLocationDTO(hit))
+                            : convertToDTO(driver);
+                    return NearestDriverDTO.builder()
+                            .driver(driverDTO)
+                            .distanceMeters(hit.distanceMeters())
+                            .build();
+                })
+                .collect(Collectors.toList());
     }
 
     /**
-     * Calculate the distance between two points using the Haversine formula.
-     * 
-     * @return Distance in meters
+     * Available drivers per cell inside a bounding box, read from the cell
+     * counters of the spatial index. The resolution is rounded to a whole
+     * number of index cells and defaults to one cell.
      */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371000; // Earth's radius in meters
+    public SupplyDensityDTO getAvailableDriverDensity(double south, double west, double north, double east,
+            Double resolutionDegrees) {
+        if (south > north || west > east || south < -90 || north > 90 || west < -180 || east > 180) {
+            throw new IllegalArgumentException("Invalid bounding box");
+        }
+        if (resolutionDegrees != null && resolutionDegrees <= 0) {
+            throw new IllegalArgumentException("Resolution must be positive: " + resolutionDegrees);
+        }
 
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
+        int cellsPerBlock = resolutionDegrees == null ? 1
+                : (int) Math.max(1, Math.round(resolutionDegrees / spatialIndex.getCellSizeDegrees()));
+        SupplyDensity density = spatialIndex.availableDensity(south, west, north, east, cellsPerBlock);
 
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                        * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        long total = 0;
+        for (int count : density.counts()) {
+            total += count;
+        }
+        return SupplyDensityDTO.builder()
+                .cellSizeDegrees(density.blockSizeDegrees())
+                .latitudes(density.latitudes())
+                .longitudes(density.longitudes())
+                .counts(density.counts())
+                .totalAvailable(total)
+                .build();
+    }
 
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    /**
+     * ETA of a driver from their current location to a point, or {@code null} if
+     * the driver's location is unknown.
+     */
+    @Transactional(readOnly = true)
+    public EtaDTO getDriverEta(Long driverId, double latitude, double longitude) {
+        LocationDTO location = getDriverCurrentLocation(driverId);
+        if (location == null) {
+            return null;
+        }
+        return convertToEtaDTO(etaEstimator.estimate(driverId, location.getLatitude(), location.getLongitude(),
+                latitude, longitude));
+    }
 
-        return R * c;
+    public EtaDTO estimateEta(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        return convertToEtaDTO(etaEstimator.estimate(fromLatitude, fromLongitude, toLatitude, toLongitude));
     }
 
     @Transactional(readOnly = true)
     public LocationDTO getDriverCurrentLocation(Long driverId) {
+        // Hot drivers are served from the process-local cache without a Redis round trip
+        LocationDTO nearCachedLocation = nearCache.get(driverId);
+        if (nearCachedLocation != null) {
+            return nearCachedLocation;
+        }
+
         // Try to get from cache first
         String redisKey = DRIVER_LOCATION_KEY_PREFIX + driverId;
         LocationDTO cachedLocation = locationRedisTemplate.opsForValue().get(redisKey);
 
         if (cachedLocation != null) {
+            nearCache.put(driverId, cachedLocation);
             return cachedLocation;
         }
 
         // If not in cache, get from database
-        DriverLocation location = locationRepository.findLatestLocationByDriverId(driverId);
-        if (location != null) {
-            LocationDTO locationDTO = convertToLocationDTO(location);
+        LocationDTO locationDTO = segmentStore.isEnabled()
+                ? driverRepository.findById(driverId)
+                        .map(driver -> convertToLocationDTO(driver.getId(), driver.getCurrentLocation()))
+                        .orElse(null)
+                : findLatestLocation(driverId);
+        if (locationDTO != null) {
             // Cache the result
             locationRedisTemplate.opsForValue().set(redisKey, locationDTO, LOCATION_CACHE_EXPIRATION, TimeUnit.SECONDS);
+            nearCache.put(driverId, locationDTO);
             return locationDTO;
         }
 
         return null;
     }
 
+    /**
+     * Current location of a driver, optionally extrapolated to now from the last
+     * fix by the {@link MotionPredictor}.
+     */
+    @Transactional(readOnly = true)
+    public LocationDTO getDriverCurrentLocation(Long driverId, boolean predicted) {
+        LocationDTO location = getDriverCurrentLocation(driverId);
+        return predicted ? withPredictedPosition(location) : location;
+    }
+
+    /**
+     * A copy of the location moved to the predicted position of its driver, or
+     * the location itself when the driver's position cannot be predicted.
+     * Cached instances are shared, so they are never modified.
+     */
+    private LocationDTO withPredictedPosition(LocationDTO location) {
+        if (location == null || location.getDriverId() == null) {
+            return location;
+        }
+        PredictedPosition prediction = motionPredictor.predict(location.getDriverId());
+        if (prediction == null) {
+            return location;
+        }
+        return LocationDTO.builder()
+                .id(location.getId())
+                .driverId(location.getDriverId())
+                .latitude(prediction.latitude())
+                .longitude(prediction.longitude())
+                .heading(location.getHeading())
+                .speed(location.getSpeed())
+                .accuracy(location.getAccuracy())
+                .timestamp(location.getTimestamp())
+                .predicted(true)
+                .build();
+    }
+
+    private LocationDTO findLatestLocation(Long driverId) {
+        DriverLocation location = locationRepository.findLatestLocationByDriverId(driverId);
+        return location != null ? convertToLocationDTO(location) : null;
+    }
+
+    /**
+     * Current location of several drivers with one Redis MGET. Cache misses are
+     * resolved with a single query on the drivers' current-location columns and
+     * written back in one pipeline. Drivers without a known location are absent
+     * from the result.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, LocationDTO> getDriverCurrentLocations(Collection<Long> driverIds) {
+        List<Long> ids = driverIds.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, LocationDTO> locations = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return locations;
+        }
+
+        List<Long> remote = new ArrayList<>();
+        for (Long id : ids) {
+            LocationDTO location = nearCache.get(id);
+            if (location != null) {
+                locations.put(id, location);
+            } else {
+                remote.add(id);
+            }
+        }
+        if (remote.isEmpty()) {
+            return locations;
+        }
+
+        List<LocationDTO> cached = locationRedisTemplate.opsForValue().multiGet(
+                remote.stream().map(id -> DRIVER_LOCATION_KEY_PREFIX + id).toList());
+
+        List<Long> misses = new ArrayList<>();
+        for (int i = 0; i < remote.size(); i++) {
+            LocationDTO location = cached != null ? cached.get(i) : null;
+            if (location != null) {
+                locations.put(remote.get(i), location);
+                nearCache.put(remote.get(i), location);
+            } else {
+                misses.add(remote.get(i));
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<Long, LocationDTO> loaded = new HashMap<>();
+            for (Driver driver : driverRepository.findAllById(misses)) {
+                LocationDTO location = convertToLocationDTO(driver.getId(), driver.getCurrentLocation());
+                if (location != null) {
+                    loaded.put(driver.getId(), location);
+                    nearCache.put(driver.getId(), location);
+                }
+            }
+            if (!loaded.isEmpty()) {
+                cacheLocations(loaded);
+            }
+            // Keep the order of the request
+            misses.stream()
+                    .filter(loaded::containsKey)
+                    .forEach(id -> locations.put(id, loaded.get(id)));
+        }
+
+        return locations;
+    }
+
     private Driver convertToEntity(DriverDTO driverDTO) {
         return Driver.builder()
                 .name(driverDTO.getName())
@@ -210,13 +666,10 @@ public class DriverService {
     }
 
     private DriverDTO convertToDTO(Driver driver) {
-        LocationDTO currentLocation = null;
-        if (driver.getLocationHistory() != null && !driver.getLocationHistory().isEmpty()) {
-            DriverLocation latestLocation = driver.getLocationHistory()
-                    .get(driver.getLocationHistory().size() - 1);
-            currentLocation = convertToLocationDTO(latestLocation);
-        }
+        return convertToDTO(driver, convertToLocationDTO(driver.getId(), driver.getCurrentLocation()));
+    }
 
+    private DriverDTO convertToDTO(Driver driver, LocationDTO currentLocation) {
         return DriverDTO.builder()
                 .id(driver.getId())
                 .name(driver.getName())
@@ -234,6 +687,7 @@ public class DriverService {
     private LocationDTO convertToLocationDTO(DriverLocation location) {
         return LocationDTO.builder()
                 .id(location.getId())
+                .driverId(location.getDriver() != null ? location.getDriver().getId() : null)
                 .latitude(location.getLatitude())
                 .longitude(location.getLongitude())
                 .heading(location.getHeading())
@@ -242,4 +696,55 @@ public class DriverService {
                 .timestamp(location.getTimestamp())
                 .build();
     }
+
+    private LocationDTO convertToLocationDTO(Long driverId, DriverCurrentLocation currentLocation) {
+        if (currentLocation == null || currentLocation.getLatitude() == null) {
+            return null;
+        }
+        return LocationDTO.builder()
+                .driverId(driverId)
+                .latitude(currentLocation.getLatitude())
+                .longitude(currentLocation.getLongitude())
+                .heading(currentLocation.getHeading())
+                .speed(currentLocation.getSpeed())
+                .accuracy(currentLocation.getAccuracy())
+                .timestamp(currentLocation.getTimestamp())
+                .build();
+    }
+
+    private LocationDTO convertToLocationDTO(LocationSample sample) {
+        return LocationDTO.builder()
+                .driverId(sample.driverId())
+                .latitude(sample.latitude())
+                .longitude(sample.longitude())
+                .heading(sample.heading())
+                .speed(sample.speed())
+                .accuracy(sample.accuracy())
+                .timestamp(sample.timestamp())
+                .build();
+    }
+
+    private LocationDTO convertToLocationDTO(NearbyDriver nearbyDriver) {
+        return LocationDTO.builder()
+                .driverId(nearbyDriver.driverId())
+                .latitude(nearbyDriver.latitude())
+                .longitude(nearbyDriver.longitude())
+                .timestamp(nearbyDriver.timestampMillis() > 0
+                        ? LocalDateTime.ofInstant(Instant.ofEpochMilli(nearbyDriver.timestampMillis()),
+                                ZoneId.systemDefault())
+                        : null)
+                .build();
+    }
+
+    private EtaDTO convertToEtaDTO(EtaEstimator.Estimate estimate) {
+        return EtaDTO.builder()
+                .etaSeconds(Math.round(estimate.seconds()))
+                .distanceMeters(estimate.distanceMeters())
+                .speedKmh(estimate.speedMetersPerSecond() * 3.6)
+                .build();
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
 }
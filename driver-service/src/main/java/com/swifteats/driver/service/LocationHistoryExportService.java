@@ -0,0 +1,195 @@
+package com.swifteats.driver.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.dto.LocationHistoryPageDTO;
+import com.swifteats.driver.model.LocationSample;
+import com.swifteats.driver.repository.DriverLocationRepository;
+import com.swifteats.driver.storage.LocationSegmentStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset-paginated access to location history. Both the page endpoint and the
+ * NDJSON export walk {@code driver_locations} in {@code (timestamp, id)} order
+ * one bounded page at a time, so memory use does not depend on the range.
+ *
+ * <p>With segment storage the same endpoints walk the decoded segments. Points
+ * there have no row id, so the cursor is the last returned timestamp and a page
+ * never ends in the middle of a group of points sharing one timestamp.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LocationHistoryExportService {
+
+    public static final int MAX_PAGE_SIZE = 5000;
+    private static final int EXPORT_PAGE_SIZE = 1000;
+
+    private final DriverLocationRepository locationRepository;
+    private final LocationSegmentStore segmentStore;
+    private final ObjectMapper objectMapper;
+
+    public LocationHistoryPageDTO getHistoryPage(Long driverId, LocalDateTime since, LocalDateTime until,
+            String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Cursor position = cursor != null ? Cursor.decode(cursor) : Cursor.startingAt(since);
+        if (segmentStore.isEnabled()) {
+            return getSegmentHistoryPage(driverId, position, until, pageSize);
+        }
+
+        List<LocationDTO> items = locationRepository.findDriverLocationHistoryPage(
+                driverId, position.timestamp(), position.id(), until, Limit.of(pageSize));
+
+        String nextCursor = null;
+        if (items.size() == pageSize) {
+            LocationDTO last = items.get(items.size() - 1);
+            nextCursor = new Cursor(last.getTimestamp(), last.getId()).encode();
+        }
+
+        return LocationHistoryPageDTO.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Write the history as newline-delimited JSON, one {@link LocationDTO} per line.
+     * Each page is read in its own short transaction and flushed before the next
+     * one is fetched.
+     *
+     * @return the number of points written
+     */
+    public long exportHistory(Long driverId, LocalDateTime since, LocalDateTime until, OutputStream outputStream)
+            throws IOException {
+        OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+        if (segmentStore.isEnabled()) {
+            return exportSegmentHistory(driverId, since, until, out);
+        }
+        Cursor position = Cursor.startingAt(since);
+        long written = 0;
+
+        while (true) {
+            List<LocationDTO> page = locationRepository.findDriverLocationHistoryPage(
+                    driverId, position.timestamp(), position.id(), until, Limit.of(EXPORT_PAGE_SIZE));
+
+            for (LocationDTO location : page) {
+                out.write(objectMapper.writeValueAsBytes(location));
+                out.write('\n');
+            }
+            out.flush();
+            written += page.size();
+
+            if (page.size() < EXPORT_PAGE_SIZE) {
+                break;
+            }
+            LocationDTO last = page.get(page.size() - 1);
+            position = new Cursor(last.getTimestamp(), last.getId());
+        }
+
+        log.info("Exported {} location points for driver {}", written, driverId);
+        return written;
+    }
+
+    private LocationHistoryPageDTO getSegmentHistoryPage(Long driverId, Cursor position, LocalDateTime until,
+            int pageSize) {
+        List<LocationDTO> items = new ArrayList<>();
+        boolean[] more = {false};
+
+        segmentStore.visitHistory(driverId, position.timestamp(), until, sample -> {
+            if (position.id() == Long.MAX_VALUE && sample.timestamp().equals(position.timestamp())) {
+                // Returned with the previous page
+                return true;
+            }
+            if (items.size() >= pageSize && !sample.timestamp().equals(items.get(items.size() - 1).getTimestamp())) {
+                more[0] = true;
+                return false;
+            }
+            items.add(toLocationDTO(sample));
+            return true;
+        });
+
+        String nextCursor = more[0]
+                ? new Cursor(items.get(items.size() - 1).getTimestamp(), Long.MAX_VALUE).encode()
+                : null;
+        return LocationHistoryPageDTO.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private long exportSegmentHistory(Long driverId, LocalDateTime since, LocalDateTime until, OutputStream out)
+            throws IOException {
+        long[] written = {0};
+        try {
+            segmentStore.visitHistory(driverId, since, until, sample -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(toLocationDTO(sample)));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written[0]++;
+                return true;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+
+        log.info("Exported {} location points for driver {}", written[0], driverId);
+        return written[0];
+    }
+
+    private static LocationDTO toLocationDTO(LocationSample sample) {
+        return LocationDTO.builder()
+                .driverId(sample.driverId())
+                .latitude(sample.latitude())
+                .longitude(sample.longitude())
+                .heading(sample.heading())
+                .speed(sample.speed())
+                .accuracy(sample.accuracy())
+                .timestamp(sample.timestamp())
+                .build();
+    }
+
+    /**
+     * Keyset position: the last returned {@code (timestamp, id)} pair.
+     */
+    private record Cursor(LocalDateTime timestamp, Long id) {
+
+        // Sorts before every row at the start time, so the first page includes it
+        static Cursor startingAt(LocalDateTime since) {
+            return new Cursor(since, Long.MIN_VALUE);
+        }
+
+        String encode() {
+            String raw = timestamp + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid history cursor: " + cursor, e);
+            }
+        }
+    }
+}
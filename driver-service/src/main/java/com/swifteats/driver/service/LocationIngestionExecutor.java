@@ -0,0 +1,171 @@
+package com.swifteats.driver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Executor for inbound location updates that hashes the driver id onto a fixed
+ * number of single-threaded lanes. Updates of one driver always run on the
+ * same lane, so they are applied strictly in arrival order, while different
+ * drivers are processed in parallel.
+ *
+ * <p>Each lane has a bounded queue. When it is full and drop-oldest is enabled,
+ * the incoming update replaces the newest update of the same driver still
+ * queued (a newer GPS point supersedes it), so one chatty driver can never push
+ * out the updates of the other drivers sharing its lane. If that driver has
+ * nothing queued, or drop-oldest is disabled, the incoming update is discarded.
+ */
+@Component
+@Slf4j
+public class LocationIngestionExecutor {
+
+    private final Lane[] lanes;
+    private final boolean dropOldest;
+    private final Counter conflatedCounter;
+    private final Counter rejectedCounter;
+
+    public LocationIngestionExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${driver.ingestion.lanes:0}") int laneCount,
+            @Value("${driver.ingestion.lane-capacity:1000}") int laneCapacity,
+            @Value("${driver.ingestion.drop-oldest:true}") boolean dropOldest,
+            @Value("${driver.ingestion.virtual-threads:true}") boolean virtualThreads) {
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.dropOldest = dropOldest;
+        this.conflatedCounter = Counter.builder("driver.location.ingestion.dropped")
+                .tag("policy", "conflated")
+                .description("Queued location updates replaced by a newer update of the same driver")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("driver.location.ingestion.dropped")
+                .tag("policy", "drop-newest")
+                .description("Location updates discarded because their lane was full")
+                .register(meterRegistry);
+
+        this.lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = new Lane(i, laneCapacity, virtualThreads);
+            Gauge.builder("driver.location.ingestion.lane.depth", lanes[i], Lane::size)
+                    .tag("lane", String.valueOf(i))
+                    .description("Location updates waiting in an ingestion lane")
+                    .register(meterRegistry);
+        }
+        log.info("Location ingestion executor started with {} lanes of capacity {}", count, laneCapacity);
+    }
+
+    public void submit(long driverId, Runnable task) {
+        Lane lane = lanes[Math.floorMod(Long.hashCode(driverId), lanes.length)];
+        switch (lane.offer(driverId, task, dropOldest)) {
+            case CONFLATED -> conflatedCounter.increment();
+            case REJECTED -> rejectedCounter.increment();
+            default -> { }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+        }
+    }
+
+    private enum Outcome { QUEUED, CONFLATED, REJECTED }
+
+    private static final class Entry {
+        private final long driverId;
+        private Runnable task;
+
+        Entry(long driverId, Runnable task) {
+            this.driverId = driverId;
+            this.task = task;
+        }
+    }
+
+    private static final class Lane implements Runnable {
+        private final int capacity;
+        private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+        // Newest queued entry per driver, the one an overflowing update of that driver replaces
+        private final Map<Long, Entry> newestByDriver = new HashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Thread thread;
+
+        Lane(int index, int capacity, boolean virtualThreads) {
+            this.capacity = capacity;
+            Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+            this.thread = builder.name("location-lane-" + index).start(this);
+        }
+
+        Outcome offer(long driverId, Runnable task, boolean conflate) {
+            lock.lock();
+            try {
+                if (queue.size() < capacity) {
+                    Entry entry = new Entry(driverId, task);
+                    queue.addLast(entry);
+                    newestByDriver.put(driverId, entry);
+                    notEmpty.signal();
+                    return Outcome.QUEUED;
+                }
+                Entry stale = conflate ? newestByDriver.get(driverId) : null;
+                if (stale == null) {
+                    return Outcome.REJECTED;
+                }
+                stale.task = task;
+                return Outcome.CONFLATED;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Runnable take() throws InterruptedException {
+            lock.lock();
+            try {
+                while (queue.isEmpty()) {
+                    notEmpty.await();
+                }
+                Entry entry = queue.pollFirst();
+                newestByDriver.remove(entry.driverId, entry);
+                return entry.task;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                Runnable task;
+                try {
+                    task = take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Location ingestion task failed", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.swifteats.driver.service;
+
+import com.swifteats.driver.dto.LocationUpdateDTO;
+import com.swifteats.driver.spatial.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Dead-band filter applied before a location update is stored or broadcast.
+ * Each update is compared with the last update accepted for the same driver:
+ * <ul>
+ * <li>updates with a device timestamp that is not newer than the last accepted
+ * one are dropped as out of order;</li>
+ * <li>updates that moved less than {@code min-distance-meters} and turned less
+ * than {@code min-heading-change-degrees} are dropped as stationary;</li>
+ * <li>a stationary update is still accepted as a keep-alive after
+ * {@code keep-alive-every} consecutive drops or {@code keep-alive-interval-seconds}
+ * since the last accepted update, so caches and subscribers never go stale.</li>
+ * </ul>
+ * An accepted update only becomes the reference point once the caller has
+ * ingested it and calls {@link #commit}, so a failed ingestion does not make
+ * its retry look stationary. Drivers without an update for
+ * {@code idle-minutes} are forgotten.
+ */
+@Component
+@Slf4j
+public class LocationIngestionFilter {
+
+    public enum Decision {
+        ACCEPTED(true),
+        KEEP_ALIVE(true),
+        STATIONARY(false),
+        OUT_OF_ORDER(false);
+
+        private final boolean accepted;
+
+        Decision(boolean accepted) {
+            this.accepted = accepted;
+        }
+
+        public boolean isAccepted() {
+            return accepted;
+        }
+    }
+
+    private final boolean enabled;
+    private final double minDistanceMeters;
+    private final double minHeadingChangeDegrees;
+    private final int keepAliveEvery;
+    private final long keepAliveIntervalNanos;
+    private final long idleNanos;
+    private final LongSupplier clock;
+
+    private final Map<Long, DriverState> states = new ConcurrentHashMap<>();
+    private final Map<Decision, Counter> counters = new EnumMap<>(Decision.class);
+
+    public LocationIngestionFilter(
+            MeterRegistry meterRegistry,
+            @Value("${driver.ingestion.filter.enabled:true}") boolean enabled,
+            @Value("${driver.ingestion.filter.min-distance-meters:10}") double minDistanceMeters,
+            @Value("${driver.ingestion.filter.min-heading-change-degrees:15}") double minHeadingChangeDegrees,
+            @Value("${driver.ingestion.filter.keep-alive-every:20}") int keepAliveEvery,
+            @Value("${driver.ingestion.filter.keep-alive-interval-seconds:10}") long keepAliveIntervalSeconds,
+            @Value("${driver.ingestion.filter.idle-minutes:30}") long idleMinutes) {
+        this(meterRegistry, enabled, minDistanceMeters, minHeadingChangeDegrees, keepAliveEvery,
+                keepAliveIntervalSeconds, idleMinutes, System::nanoTime);
+    }
+
+    LocationIngestionFilter(MeterRegistry meterRegistry, boolean enabled, double minDistanceMeters,
+            double minHeadingChangeDegrees, int keepAliveEvery, long keepAliveIntervalSeconds, long idleMinutes,
+            LongSupplier clock) {
+        this.enabled = enabled;
+        this.minDistanceMeters = minDistanceMeters;
+        this.minHeadingChangeDegrees = minHeadingChangeDegrees;
+        this.keepAliveEvery = keepAliveEvery;
+        this.keepAliveIntervalNanos = TimeUnit.SECONDS.toNanos(keepAliveIntervalSeconds);
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        this.clock = clock;
+
+        for (Decision decision : Decision.values()) {
+            counters.put(decision, Counter.builder("driver.location.ingestion.filter")
+                    .tag("decision", decision.name().toLowerCase())
+                    .description("Location updates by ingestion filter decision")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Decide whether the update should be ingested. An accepted update is only
+     * compared against until it is {@link #commit committed}.
+     */
+    public Decision apply(LocationUpdateDTO update) {
+        if (!enabled) {
+            return Decision.ACCEPTED;
+        }
+
+        DriverState state = states.computeIfAbsent(update.getDriverId(), id -> new DriverState());
+        Decision decision;
+        synchronized (state) {
+            decision = state.apply(update, clock.getAsLong());
+        }
+        counters.get(decision).increment();
+        return decision;
+    }
+
+    /**
+     * Make an ingested update the reference point for the driver's next update.
+     */
+    public void commit(LocationUpdateDTO update) {
+        if (!enabled) {
+            return;
+        }
+        DriverState state = states.computeIfAbsent(update.getDriverId(), id -> new DriverState());
+        synchronized (state) {
+            state.accept(update, clock.getAsLong());
+        }
+    }
+
+    public void forget(long driverId) {
+        states.remove(driverId);
+    }
+
+    /**
+     * Drop the state of drivers that stopped sending, so memory follows the
+     * active fleet.
+     */
+    @Scheduled(fixedDelayString = "${driver.ingestion.filter.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        int before = states.size();
+        states.values().removeIf(state -> now - state.seenAtNanos > idleNanos);
+        if (states.size() < before) {
+            log.debug("Evicted {} idle ingestion filter states", before - states.size());
+        }
+    }
+
+    private static double headingChange(Double from, Double to) {
+        if (from == null || to == null) {
+            return 0;
+        }
+        double change = Math.abs(from - to) % 360;
+        return change > 180 ? 360 - change : change;
+    }
+
+    private final class DriverState {
+        private boolean initialized;
+        private double latitude;
+        private double longitude;
+        private Double heading;
+        private LocalDateTime deviceTimestamp;
+        private long acceptedAtNanos;
+        private int dropped;
+        private volatile long seenAtNanos = clock.getAsLong();
+
+        Decision apply(LocationUpdateDTO update, long now) {
+            seenAtNanos = now;
+            if (!initialized) {
+                return Decision.ACCEPTED;
+            }
+
+            LocalDateTime timestamp = update.getTimestamp();
+            if (timestamp != null && deviceTimestamp != null && !timestamp.isAfter(deviceTimestamp)) {
+                return Decision.OUT_OF_ORDER;
+            }
+
+            double distance = GeoUtils.distanceMeters(latitude, longitude, update.getLatitude(), update.getLongitude());
+            if (distance >= minDistanceMeters || headingChange(heading, update.getHeading()) >= minHeadingChangeDegrees) {
+                return Decision.ACCEPTED;
+            }
+
+            boolean keepAliveDue = (keepAliveEvery > 0 && dropped + 1 >= keepAliveEvery)
+                    || now - acceptedAtNanos >= keepAliveIntervalNanos;
+            if (keepAliveDue) {
+                return Decision.KEEP_ALIVE;
+            }
+
+            dropped++;
+            return Decision.STATIONARY;
+        }
+
+        void accept(LocationUpdateDTO update, long now) {
+            seenAtNanos = now;
+            initialized = true;
+            latitude = update.getLatitude();
+            longitude = update.getLongitude();
+            heading = update.getHeading();
+            if (update.getTimestamp() != null) {
+                deviceTimestamp = update.getTimestamp();
+            }
+            acceptedAtNanos = now;
+            dropped = 0;
+        }
+    }
+}
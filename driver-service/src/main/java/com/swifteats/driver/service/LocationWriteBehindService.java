@@ -0,0 +1,242 @@
+package com.swifteats.driver.service;
+
+import com.swifteats.driver.model.LocationSample;
+import com.swifteats.driver.repository.DriverLocationBatchRepository;
+import com.swifteats.driver.storage.LocationSegmentStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for driver location points. Request threads only enqueue;
+ * a single flusher thread drains the buffer and writes it to
+ * {@code driver_locations} in JDBC batches, either when a full batch is
+ * available or when the flush interval elapses. Each flush also refreshes the
+ * current-location columns of the affected drivers.
+ *
+ * <p>When the buffer is full the caller first waits up to the offer timeout for
+ * room, and only then writes its own points synchronously, so a slow database
+ * degrades latency instead of losing data. Every write runs in a transaction of
+ * its own: the caller may be inside a read-only transaction, which the write
+ * must neither join nor mark rollback-only.
+ *
+ * <p>With segment storage enabled the points go to the {@link LocationSegmentStore}
+ * instead of {@code driver_locations}; only the current-location columns are
+ * written here.
+ */
+@Service
+@Slf4j
+public class LocationWriteBehindService {
+
+    private final DriverLocationBatchRepository batchRepository;
+    private final LocationSegmentStore segmentStore;
+    private final BlockingQueue<LocationSample> buffer;
+    private final TransactionTemplate writeTransaction;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Counter overflowCounter;
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public LocationWriteBehindService(
+            DriverLocationBatchRepository batchRepository,
+            LocationSegmentStore segmentStore,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${driver.location.write-behind.capacity:50000}") int capacity,
+            @Value("${driver.location.write-behind.batch-size:1000}") int batchSize,
+            @Value("${driver.location.write-behind.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${driver.location.write-behind.offer-timeout-ms:200}") long offerTimeoutMs) {
+        this.batchRepository = batchRepository;
+        this.segmentStore = segmentStore;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+
+        Gauge.builder("driver.location.write_behind.queue.depth", buffer, BlockingQueue::size)
+                .description("Location points waiting to be persisted")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("driver.location.write_behind.flush")
+                .description("Time spent writing one batch of location points")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("driver.location.write_behind.rows")
+                .tag("result", "written")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("driver.location.write_behind.rows")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("driver.location.write_behind.overflow")
+                .description("Points written synchronously because the buffer stayed full")
+                .register(meterRegistry);
+
+        this.flusher = new Thread(this::runFlusher, "location-write-behind");
+        this.flusher.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+        log.info("Location write-behind started: batchSize={}, flushInterval={}ms", batchSize, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public void enqueue(LocationSample sample) {
+        if (!offer(sample, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs))) {
+            overflowCounter.increment();
+            writeBatch(List.of(sample));
+        }
+    }
+
+    public void enqueueAll(Collection<LocationSample> samples) {
+        // One wait for the whole batch, not one per point
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        List<LocationSample> overflow = null;
+        for (LocationSample sample : samples) {
+            if (!offer(sample, deadline)) {
+                if (overflow == null) {
+                    overflow = new ArrayList<>();
+                }
+                overflow.add(sample);
+            }
+        }
+        if (overflow != null) {
+            overflowCounter.increment(overflow.size());
+            writeBatch(overflow);
+        }
+    }
+
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    /**
+     * Hand a point to the flusher, waiting for room until the deadline (in nanos).
+     */
+    private boolean offer(LocationSample sample, long deadline) {
+        if (buffer.offer(sample)) {
+            return true;
+        }
+        try {
+            return buffer.offer(sample, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runFlusher() {
+        List<LocationSample> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                LocationSample first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch);
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Shutting down: persist whatever is still buffered
+        buffer.drainTo(batch);
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            writeBatch(batch.subList(from, Math.min(from + batchSize, batch.size())));
+        }
+        log.info("Location write-behind stopped");
+    }
+
+    /**
+     * Fill the batch until it is full or the flush interval has elapsed.
+     */
+    private void collectBatch(List<LocationSample> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            LocationSample next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeBatch(List<LocationSample> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (segmentStore.isEnabled()) {
+            segmentStore.append(batch);
+        }
+        flushTimer.record(() -> {
+            try {
+                persist(batch);
+                writtenCounter.increment(batch.size());
+            } catch (DataAccessException e) {
+                // One bad row (e.g. a deleted driver) fails the whole batch; retry row by row
+                log.warn("Batch insert of {} location points failed, retrying individually: {}",
+                        batch.size(), e.getMessage());
+                batch.forEach(this::writeSingle);
+            }
+        });
+    }
+
+    private void writeSingle(LocationSample sample) {
+        try {
+            persist(List.of(sample));
+            writtenCounter.increment();
+        } catch (DataAccessException e) {
+            failedCounter.increment();
+            log.error("Dropping location point for driver {}: {}", sample.driverId(), e.getMessage());
+        }
+    }
+
+    private void persist(List<LocationSample> samples) {
+        writeTransaction.executeWithoutResult(status -> {
+            if (segmentStore.isEnabled()) {
+                batchRepository.updateCurrentLocations(samples);
+            } else {
+                batchRepository.saveAll(samples);
+            }
+        });
+    }
+}
@@ -0,0 +1,563 @@
+package com.swifteats.driver.spatial;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process uniform grid of the latest position and availability of every
+ * driver. Driver state lives in parallel primitive arrays indexed by a slot
+ * number, and every grid cell keeps the slots of the drivers currently inside
+ * it, so a radius query only visits the cells overlapping the search circle.
+ *
+ * <p>The index is fed from the ingestion path and never reads the database;
+ * drivers appear in it with their first location update and are evicted once
+ * they sent none for {@code stale-after-seconds}. Each cell also
+ * counts its available drivers, kept up to date as drivers move and change
+ * status, so supply density is read from the cells without visiting drivers.
+ */
+@Component
+@Slf4j
+public class DriverSpatialIndex implements NearbyDriverSearch {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final double cellSizeDegrees;
+    // Highest row and column index of the grid; positions and queries outside it are clamped
+    private final int maxRowIndex;
+    private final int maxColumnIndex;
+    private final long staleAfterMillis;
+    private final LongSupplier clock;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Slot storage, one entry per tracked driver
+    private long[] driverIds = new long[INITIAL_CAPACITY];
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private boolean[] available = new boolean[INITIAL_CAPACITY];
+    private long[] cellKeys = new long[INITIAL_CAPACITY];
+    private int[] positionsInCell = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private final Map<Long, Integer> slotsByDriver = new HashMap<>();
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    public DriverSpatialIndex(
+            @Value("${driver.spatial.cell-size-degrees:0.01}") double cellSizeDegrees,
+            @Value("${driver.nearby.stale-after-seconds:120}") long staleAfterSeconds) {
+        this(cellSizeDegrees, staleAfterSeconds, System::currentTimeMillis);
+    }
+
+    DriverSpatialIndex(double cellSizeDegrees, long staleAfterSeconds, LongSupplier clock) {
+        if (cellSizeDegrees <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSizeDegrees);
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.maxRowIndex = (int) Math.floor(180 / cellSizeDegrees);
+        this.maxColumnIndex = (int) Math.floor(360 / cellSizeDegrees);
+        this.staleAfterMillis = TimeUnit.SECONDS.toMillis(staleAfterSeconds);
+        this.clock = clock;
+        log.info("Driver spatial index initialized with {} degree cells", cellSizeDegrees);
+    }
+
+    /**
+     * Record the latest position of a driver, moving it between cells if needed.
+     */
+    @Override
+    public void updateLocation(long driverId, double latitude, double longitude, boolean isAvailable,
+            long timestampMillis) {
+        long cellKey = cellKey(row(latitude), column(longitude));
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsByDriver.get(driverId);
+            if (slot == null) {
+                slot = allocateSlot(driverId);
+                addToCell(slot, cellKey);
+            } else if (cellKeys[slot] != cellKey) {
+                removeFromCell(slot);
+                addToCell(slot, cellKey);
+            }
+
+            latitudes[slot] = latitude;
+            longitudes[slot] = longitude;
+            timestamps[slot] = timestampMillis;
+            setAvailable(slot, isAvailable);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Update the availability of a driver. Drivers without a known position are
+     * ignored; their availability is picked up with their next location update.
+     */
+    @Override
+    public void updateAvailability(long driverId, boolean isAvailable) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsByDriver.get(driverId);
+            if (slot != null) {
+                setAvailable(slot, isAvailable);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long driverId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsByDriver.get(driverId);
+            if (slot != null) {
+                removeSlot(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove drivers that sent no location for {@code stale-after-seconds}, so a
+     * driver whose app went silent is not offered or matched forever.
+     */
+    @Scheduled(fixedDelayString = "${driver.nearby.eviction-interval-ms:30000}")
+    public void evictStale() {
+        long cutoff = clock.getAsLong() - staleAfterMillis;
+        int evicted = 0;
+        lock.writeLock().lock();
+        try {
+            // Backwards, so the slot moved into a freed one has already been checked
+            for (int slot = size - 1; slot >= 0; slot--) {
+                if (timestamps[slot] < cutoff) {
+                    removeSlot(slot);
+                    evicted++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (evicted > 0) {
+            log.info("Evicted {} drivers without recent locations from the spatial index", evicted);
+        }
+    }
+
+    /**
+     * @return the availability of a tracked driver, or empty if the driver has no
+     *         known position yet
+     */
+    public Optional<Boolean> availability(long driverId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsByDriver.get(driverId);
+            return slot == null ? Optional.empty() : Optional.of(available[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long driverId) {
+        lock.readLock().lock();
+        try {
+            return slotsByDriver.containsKey(driverId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double getCellSizeDegrees() {
+        return cellSizeDegrees;
+    }
+
+    /**
+     * Count the available drivers per block of {@code cellsPerBlock} × {@code cellsPerBlock}
+     * grid cells inside a bounding box. Only cell counters are read, so the cost
+     * is the number of cells in the box, or the number of occupied cells when
+     * that is smaller.
+     */
+    public SupplyDensity availableDensity(double south, double west, double north, double east,
+            int cellsPerBlock) {
+        if (cellsPerBlock < 1) {
+            throw new IllegalArgumentException("Cells per block must be positive: " + cellsPerBlock);
+        }
+        int minRow = row(south);
+        int maxRow = row(north);
+        int minColumn = column(west);
+        int maxColumn = column(east);
+
+        Map<Long, Integer> countsByBlock = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            long cellsInBox = ((long) maxRow - minRow + 1) * ((long) maxColumn - minColumn + 1);
+            if (cellsInBox > cells.size()) {
+                for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                    int row = (int) (entry.getKey() >> 32);
+                    int column = (int) (long) entry.getKey();
+                    if (row >= minRow && row <= maxRow && column >= minColumn && column <= maxColumn) {
+                        addToBlock(countsByBlock, row, column, cellsPerBlock, entry.getValue().availableCount);
+                    }
+                }
+            } else {
+                for (int row = minRow; row <= maxRow; row++) {
+                    for (int column = minColumn; column <= maxColumn; column++) {
+                        Cell cell = cells.get(cellKey(row, column));
+                        if (cell != null) {
+                            addToBlock(countsByBlock, row, column, cellsPerBlock, cell.availableCount);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        double blockSize = cellSizeDegrees * cellsPerBlock;
+        double[] blockLatitudes = new double[countsByBlock.size()];
+        double[] blockLongitudes = new double[countsByBlock.size()];
+        int[] counts = new int[countsByBlock.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : countsByBlock.entrySet()) {
+            // Center of the block
+            blockLatitudes[i] = ((int) (entry.getKey() >> 32) + 0.5) * blockSize - 90;
+            blockLongitudes[i] = ((int) (long) entry.getKey() + 0.5) * blockSize - 180;
+            counts[i] = entry.getValue();
+            i++;
+        }
+        return new SupplyDensity(blockSize, blockLatitudes, blockLongitudes, counts);
+    }
+
+    private static void addToBlock(Map<Long, Integer> countsByBlock, int row, int column, int cellsPerBlock,
+            int count) {
+        if (count > 0) {
+            long blockKey = cellKey(Math.floorDiv(row, cellsPerBlock), Math.floorDiv(column, cellsPerBlock));
+            countsByBlock.merge(blockKey, count, Integer::sum);
+        }
+    }
+
+    /**
+     * Find the available drivers within the given radius of a point.
+     */
+    @Override
+    public List<NearbyDriver> findAvailableNearby(double latitude, double longitude, double radiusInMeters) {
+        double latDelta = radiusInMeters / GeoUtils.METERS_PER_DEGREE;
+        double lngDelta = radiusInMeters / GeoUtils.metersPerDegreeLongitude(latitude);
+
+        int minRow = row(latitude - latDelta);
+        int maxRow = row(latitude + latDelta);
+        int minColumn = column(longitude - lngDelta);
+        int maxColumn = column(longitude + lngDelta);
+
+        List<NearbyDriver> result = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            long cellsInBox = ((long) maxRow - minRow + 1) * ((long) maxColumn - minColumn + 1);
+            if (cellsInBox > cells.size()) {
+                // Very large radius: walking the occupied cells is cheaper than the box
+                for (Cell cell : cells.values()) {
+                    collectAvailable(cell, latitude, longitude, radiusInMeters, result);
+                }
+                return result;
+            }
+
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    Cell cell = cells.get(cellKey(row, column));
+                    if (cell != null) {
+                        collectAvailable(cell, latitude, longitude, radiusInMeters, result);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the {@code k} available drivers closest to a point, nearest first.
+     * Cells are visited in square rings around the query cell while a bounded
+     * max-heap keeps the best {@code k} candidates; the search stops as soon as
+     * the heap is full and no unvisited ring can hold a closer driver, so the
+     * cost depends on {@code k} and local density rather than on the radius.
+     */
+    @Override
+    public List<NearbyDriver> findNearestAvailable(double latitude, double longitude, int k,
+            double maxRadiusInMeters) {
+        if (k <= 0) {
+            return List.of();
+        }
+
+        int centerRow = row(latitude);
+        int centerColumn = column(longitude);
+        // No ring beyond the width of the grid holds a cell, however large the radius
+        int maxRing = (int) Math.min(Math.ceil(Math.max(
+                maxRadiusInMeters / GeoUtils.METERS_PER_DEGREE,
+                maxRadiusInMeters / GeoUtils.metersPerDegreeLongitude(latitude)) / cellSizeDegrees) + 1,
+                maxColumnIndex);
+
+        // Farthest candidate on top, so it is the one evicted by a closer driver
+        PriorityQueue<NearbyDriver> heap = new PriorityQueue<>(k + 1,
+                Comparator.comparingDouble(NearbyDriver::distanceMeters).reversed());
+
+        lock.readLock().lock();
+        try {
+            long cellsVisited = 0;
+            for (int ring = 0; ring <= maxRing; ring++) {
+                if (cellsVisited == cells.size()) {
+                    // Every occupied cell has been seen
+                    break;
+                }
+                if (8L * ring > cells.size()) {
+                    // Sparse index: one pass over the occupied cells is cheaper than the next ring
+                    heap.clear();
+                    for (Cell cell : cells.values()) {
+                        collectNearest(cell, latitude, longitude, k, maxRadiusInMeters, heap);
+                    }
+                    break;
+                }
+
+                cellsVisited += visitRing(centerRow, centerColumn, ring, latitude, longitude, k,
+                        maxRadiusInMeters, heap);
+
+                double nextRingDistance = distanceToRing(latitude, longitude, centerRow, centerColumn, ring + 1);
+                if (nextRingDistance > maxRadiusInMeters
+                        || (heap.size() == k && heap.peek().distanceMeters() <= nextRingDistance)) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<NearbyDriver> nearest = new ArrayList<>(heap);
+        nearest.sort(Comparator.comparingDouble(NearbyDriver::distanceMeters));
+        return nearest;
+    }
+
+    /**
+     * @return the number of occupied cells on the ring
+     */
+    private int visitRing(int centerRow, int centerColumn, int ring, double latitude, double longitude, int k,
+            double maxRadiusInMeters, PriorityQueue<NearbyDriver> heap) {
+        int occupied = 0;
+        for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+            boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+            // Inner rows only contribute their two edge cells
+            int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+            for (int column = centerColumn - ring; column <= centerColumn + ring; column += step) {
+                Cell cell = cells.get(cellKey(row, column));
+                if (cell != null) {
+                    occupied++;
+                    collectNearest(cell, latitude, longitude, k, maxRadiusInMeters, heap);
+                }
+            }
+        }
+        return occupied;
+    }
+
+    private void collectNearest(Cell cell, double latitude, double longitude, int k, double maxRadiusInMeters,
+            PriorityQueue<NearbyDriver> heap) {
+        for (int i = 0; i < cell.count; i++) {
+            int slot = cell.slots[i];
+            if (!available[slot]) {
+                continue;
+            }
+            double distance = GeoUtils.distanceMeters(latitude, longitude, latitudes[slot], longitudes[slot]);
+            if (distance > maxRadiusInMeters || (heap.size() == k && distance >= heap.peek().distanceMeters())) {
+                continue;
+            }
+            heap.add(new NearbyDriver(driverIds[slot], latitudes[slot], longitudes[slot], timestamps[slot], distance));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+    }
+
+    /**
+     * Lower bound of the distance from the query point to any cell on the given
+     * ring, i.e. to the edge of the square block made of the inner rings.
+     */
+    private double distanceToRing(double latitude, double longitude, int centerRow, int centerColumn, int ring) {
+        if (ring == 0) {
+            return 0;
+        }
+        double south = (centerRow - ring + 1) * cellSizeDegrees - 90;
+        double north = (centerRow + ring) * cellSizeDegrees - 90;
+        double west = (centerColumn - ring + 1) * cellSizeDegrees - 180;
+        double east = (centerColumn + ring) * cellSizeDegrees - 180;
+
+        // Degrees of longitude are shortest on the poleward edge of the block
+        double poleward = Math.min(89.9, Math.max(Math.abs(south), Math.abs(north)));
+        double metersPerDegreeLongitude = GeoUtils.metersPerDegreeLongitude(poleward);
+
+        double latitudeGap = Math.min(latitude - south, north - latitude) * GeoUtils.METERS_PER_DEGREE;
+        double longitudeGap = Math.min(longitude - west, east - longitude) * metersPerDegreeLongitude;
+        // 1% slack for the difference between the flat approximation and haversine distances
+        return Math.min(latitudeGap, longitudeGap) * 0.99;
+    }
+
+    private void collectAvailable(Cell cell, double latitude, double longitude, double radiusInMeters,
+            List<NearbyDriver> result) {
+        for (int i = 0; i < cell.count; i++) {
+            int slot = cell.slots[i];
+            if (!available[slot]) {
+                continue;
+            }
+            double distance = GeoUtils.distanceMeters(latitude, longitude, latitudes[slot], longitudes[slot]);
+            if (distance <= radiusInMeters) {
+                result.add(new NearbyDriver(driverIds[slot], latitudes[slot], longitudes[slot],
+                        timestamps[slot], distance));
+            }
+        }
+    }
+
+    private int allocateSlot(long driverId) {
+        if (size == driverIds.length) {
+            grow();
+        }
+        int slot = size++;
+        driverIds[slot] = driverId;
+        // Counted in its cell once it is marked available
+        available[slot] = false;
+        slotsByDriver.put(driverId, slot);
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        slotsByDriver.remove(driverIds[slot]);
+        removeFromCell(slot);
+
+        int last = --size;
+        if (slot != last) {
+            moveSlot(last, slot);
+        }
+    }
+
+    private void moveSlot(int from, int to) {
+        driverIds[to] = driverIds[from];
+        latitudes[to] = latitudes[from];
+        longitudes[to] = longitudes[from];
+        timestamps[to] = timestamps[from];
+        available[to] = available[from];
+        cellKeys[to] = cellKeys[from];
+        positionsInCell[to] = positionsInCell[from];
+
+        cells.get(cellKeys[to]).slots[positionsInCell[to]] = to;
+        slotsByDriver.put(driverIds[to], to);
+    }
+
+    private void addToCell(int slot, long cellKey) {
+        Cell cell = cells.computeIfAbsent(cellKey, key -> new Cell());
+        cellKeys[slot] = cellKey;
+        positionsInCell[slot] = cell.add(slot);
+        if (available[slot]) {
+            cell.availableCount++;
+        }
+    }
+
+    private void removeFromCell(int slot) {
+        long cellKey = cellKeys[slot];
+        Cell cell = cells.get(cellKey);
+        if (available[slot]) {
+            cell.availableCount--;
+        }
+        int movedSlot = cell.removeAt(positionsInCell[slot]);
+        if (movedSlot >= 0) {
+            positionsInCell[movedSlot] = positionsInCell[slot];
+        }
+        if (cell.count == 0) {
+            cells.remove(cellKey);
+        }
+    }
+
+    private void setAvailable(int slot, boolean isAvailable) {
+        if (available[slot] != isAvailable) {
+            available[slot] = isAvailable;
+            cells.get(cellKeys[slot]).availableCount += isAvailable ? 1 : -1;
+        }
+    }
+
+    private void grow() {
+        int capacity = driverIds.length * 2;
+        driverIds = Arrays.copyOf(driverIds, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        available = Arrays.copyOf(available, capacity);
+        cellKeys = Arrays.copyOf(cellKeys, capacity);
+        positionsInCell = Arrays.copyOf(positionsInCell, capacity);
+    }
+
+    private int row(double latitude) {
+        return clamp(Math.floor((latitude + 90) / cellSizeDegrees), maxRowIndex);
+    }
+
+    private int column(double longitude) {
+        return clamp(Math.floor((longitude + 180) / cellSizeDegrees), maxColumnIndex);
+    }
+
+    // NaN ends up in the first cell
+    private static int clamp(double index, int maxIndex) {
+        return index >= 0 ? (int) Math.min(index, maxIndex) : 0;
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    /**
+     * Slots of the drivers inside one grid cell, kept dense so removal is a swap
+     * with the last entry.
+     */
+    private static final class Cell {
+        private int[] slots = new int[8];
+        private int count;
+        private int availableCount;
+
+        int add(int slot) {
+            if (count == slots.length) {
+                slots = Arrays.copyOf(slots, count * 2);
+            }
+            slots[count] = slot;
+            return count++;
+        }
+
+        /**
+         * @return the slot that was moved into the freed position, or -1 if none
+         */
+        int removeAt(int position) {
+            int last = --count;
+            if (position == last) {
+                return -1;
+            }
+            slots[position] = slots[last];
+            return slots[position];
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.swifteats.driver.spatial;
+
+/**
+ * Small set of geographic helpers shared by the spatial components.
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_METERS = 6371000;
+
+    // Length of one degree of latitude, also one degree of longitude at the equator
+    public static final double METERS_PER_DEGREE = 111320;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Calculate the distance between two points using the Haversine formula.
+     *
+     * @return Distance in meters
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return EARTH_RADIUS_METERS * c;
+    }
+
+    /**
+     * Meters covered by one degree of longitude at the given latitude. Clamped so
+     * that bounding boxes near the poles stay finite.
+     */
+    public static double metersPerDegreeLongitude(double latitude) {
+        return METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+    }
+}
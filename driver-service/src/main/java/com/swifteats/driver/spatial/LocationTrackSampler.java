@@ -0,0 +1,145 @@
+package com.swifteats.driver.spatial;
+
+import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.dto.LocationHistorySamplingDTO;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming downsampler for a time-ordered location track. Points are pushed
+ * one at a time while rows are read and pass through up to three stages:
+ * <ol>
+ * <li>time buckets: the first point of every {@code intervalSeconds} bucket is kept;</li>
+ * <li>geometric simplification with an opening-window algorithm: a point is kept
+ * only when the track can no longer be approximated by a straight segment
+ * within {@code toleranceMeters}, which gives Douglas–Peucker-like output
+ * without holding the whole track in memory;</li>
+ * <li>a cap on the output size: whenever the output exceeds {@code maxPoints}
+ * every other point is dropped and the sampling stride doubles.</li>
+ * </ol>
+ * Memory is bounded by the output size plus a small simplification window.
+ */
+public class LocationTrackSampler {
+
+    // Longest straight run kept in the simplification window before a point is forced out
+    private static final int MAX_WINDOW_SIZE = 256;
+
+    private final long intervalSeconds;
+    private final double toleranceMeters;
+    private final int maxPoints;
+
+    private long currentBucket = Long.MIN_VALUE;
+
+    private LocationDTO anchor;
+    private final List<LocationDTO> window = new ArrayList<>();
+
+    private final List<LocationDTO> output = new ArrayList<>();
+    private int stride = 1;
+    private long candidates;
+    private LocationDTO lastPoint;
+
+    public LocationTrackSampler(LocationHistorySamplingDTO sampling) {
+        this.intervalSeconds = sampling.getIntervalSeconds() != null ? Math.max(0, sampling.getIntervalSeconds()) : 0;
+        this.toleranceMeters = sampling.getToleranceMeters() != null ? Math.max(0, sampling.getToleranceMeters()) : 0;
+        this.maxPoints = sampling.getMaxPoints() != null && sampling.getMaxPoints() > 0
+                ? Math.max(2, sampling.getMaxPoints())
+                : Integer.MAX_VALUE;
+    }
+
+    public void accept(LocationDTO point) {
+        lastPoint = point;
+        if (intervalSeconds > 0) {
+            long bucket = Math.floorDiv(point.getTimestamp().toEpochSecond(ZoneOffset.UTC), intervalSeconds);
+            if (bucket == currentBucket) {
+                return;
+            }
+            currentBucket = bucket;
+        }
+
+        if (toleranceMeters > 0) {
+            simplify(point);
+        } else {
+            emit(point);
+        }
+    }
+
+    public List<LocationDTO> finish() {
+        if (!window.isEmpty()) {
+            emit(window.get(window.size() - 1));
+            window.clear();
+        }
+
+        // Always end the track on its last point
+        if (lastPoint != null && (output.isEmpty() || output.get(output.size() - 1) != lastPoint)) {
+            if (output.size() >= maxPoints) {
+                output.set(output.size() - 1, lastPoint);
+            } else {
+                output.add(lastPoint);
+            }
+        }
+        return output;
+    }
+
+    private void simplify(LocationDTO point) {
+        if (anchor == null) {
+            anchor = point;
+            emit(point);
+            return;
+        }
+
+        if (window.size() >= MAX_WINDOW_SIZE || exceedsTolerance(point)) {
+            LocationDTO floatingEnd = window.get(window.size() - 1);
+            emit(floatingEnd);
+            anchor = floatingEnd;
+            window.clear();
+        }
+        window.add(point);
+    }
+
+    /**
+     * Whether any buffered point is further than the tolerance from the segment
+     * between the anchor and the candidate end point.
+     */
+    private boolean exceedsTolerance(LocationDTO end) {
+        if (window.isEmpty()) {
+            return false;
+        }
+
+        double metersPerDegreeLongitude = GeoUtils.metersPerDegreeLongitude(anchor.getLatitude());
+        double endX = (end.getLongitude() - anchor.getLongitude()) * metersPerDegreeLongitude;
+        double endY = (end.getLatitude() - anchor.getLatitude()) * GeoUtils.METERS_PER_DEGREE;
+        double lengthSquared = endX * endX + endY * endY;
+
+        for (LocationDTO point : window) {
+            double x = (point.getLongitude() - anchor.getLongitude()) * metersPerDegreeLongitude;
+            double y = (point.getLatitude() - anchor.getLatitude()) * GeoUtils.METERS_PER_DEGREE;
+
+            double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (x * endX + y * endY) / lengthSquared));
+            double dx = x - t * endX;
+            double dy = y - t * endY;
+            if (dx * dx + dy * dy > toleranceMeters * toleranceMeters) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void emit(LocationDTO point) {
+        if (candidates++ % stride != 0) {
+            return;
+        }
+
+        output.add(point);
+        if (output.size() > maxPoints) {
+            // Halve the output and sample future points half as often
+            int kept = 0;
+            for (int i = 0; i < output.size(); i += 2) {
+                output.set(kept++, output.get(i));
+            }
+            output.subList(kept, output.size()).clear();
+            stride *= 2;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.swifteats.driver.spatial;
+
+/**
+ * A driver position returned by a spatial query, together with its distance
+ * from the query point.
+ */
+public record NearbyDriver(
+        long driverId,
+        double latitude,
+        double longitude,
+        long timestampMillis,
+        double distanceMeters) {
+}
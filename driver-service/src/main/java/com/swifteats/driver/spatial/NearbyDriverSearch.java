@@ -0,0 +1,33 @@
+package com.swifteats.driver.spatial;
+
+import java.util.List;
+
+/**
+ * Backend answering nearby-driver queries. Implementations are fed with every
+ * accepted location and availability change.
+ */
+public interface NearbyDriverSearch {
+
+    void updateLocation(long driverId, double latitude, double longitude, boolean isAvailable, long timestampMillis);
+
+    void updateAvailability(long driverId, boolean isAvailable);
+
+    List<NearbyDriver> findAvailableNearby(double latitude, double longitude, double radiusInMeters);
+
+    /**
+     * Search whose results the caller only keeps within {@code filterRadiusInMeters}
+     * of some point inside the widened {@code radiusInMeters}. Backends that cap
+     * the number of results raise the cap by the extra area, so hits near the
+     * edge are not cut off.
+     */
+    default List<NearbyDriver> findAvailableNearby(double latitude, double longitude, double radiusInMeters,
+            double filterRadiusInMeters) {
+        return findAvailableNearby(latitude, longitude, radiusInMeters);
+    }
+
+    /**
+     * The {@code k} available drivers closest to a point, nearest first, looking
+     * no further than {@code maxRadiusInMeters}.
+     */
+    List<NearbyDriver> findNearestAvailable(double latitude, double longitude, int k, double maxRadiusInMeters);
+}
@@ -0,0 +1,175 @@
+package com.swifteats.driver.spatial;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Nearby search backed by a Redis geo set holding the available drivers, so
+ * several driver-service replicas share one spatial index. Drivers are added
+ * with GEOADD on every location update while available, removed as soon as
+ * they become unavailable, and queried with GEOSEARCH BYRADIUS ... ASC COUNT.
+ *
+ * <p>Availability is shared as well: every status change is recorded in the
+ * {@value #AVAILABILITY_KEY} hash, and a location update only adds a driver
+ * that hash marks available, so a replica with a stale view cannot re-add a
+ * driver another replica made busy. The availability passed in by the caller
+ * only counts for drivers without a recorded status. Last-seen times in
+ * {@value #LAST_SEEN_KEY} let drivers that stopped sending expire. Every
+ * update is one Lua script, so the check and the write are atomic.
+ */
+@Slf4j
+public class RedisGeoNearbyDriverSearch implements NearbyDriverSearch {
+
+    public static final String AVAILABLE_DRIVERS_GEO_KEY = "drivers:available:geo";
+    public static final String AVAILABILITY_KEY = "drivers:availability";
+    public static final String LAST_SEEN_KEY = "drivers:available:seen";
+
+    static final List<String> KEYS = List.of(AVAILABLE_DRIVERS_GEO_KEY, AVAILABILITY_KEY, LAST_SEEN_KEY);
+
+    // ARGV: driver, longitude, latitude, caller's availability, now
+    static final RedisScript<Long> UPDATE_LOCATION_SCRIPT = new DefaultRedisScript<>("""
+            local available = redis.call('HGET', KEYS[2], ARGV[1]) or ARGV[4]
+            if available == '1' then
+              redis.call('GEOADD', KEYS[1], ARGV[2], ARGV[3], ARGV[1])
+              redis.call('ZADD', KEYS[3], ARGV[5], ARGV[1])
+              return 1
+            end
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            redis.call('ZREM', KEYS[3], ARGV[1])
+            return 0
+            """, Long.class);
+
+    // ARGV: driver, availability; available drivers are added with their next location
+    static final RedisScript<Long> UPDATE_AVAILABILITY_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('HSET', KEYS[2], ARGV[1], ARGV[2])
+            if ARGV[2] == '0' then
+              redis.call('ZREM', KEYS[1], ARGV[1])
+              redis.call('ZREM', KEYS[3], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+
+    // ARGV: cutoff, batch size
+    static final RedisScript<Long> EVICT_STALE_SCRIPT = new DefaultRedisScript<>("""
+            local stale = redis.call('ZRANGEBYSCORE', KEYS[3], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+            if #stale > 0 then
+              redis.call('ZREM', KEYS[1], unpack(stale))
+              redis.call('ZREM', KEYS[3], unpack(stale))
+            end
+            return #stale
+            """, Long.class);
+
+    private static final int EVICT_BATCH_SIZE = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final int maxResults;
+    private final long staleAfterMillis;
+    private final LongSupplier clock;
+
+    public RedisGeoNearbyDriverSearch(StringRedisTemplate redisTemplate, int maxResults, long staleAfterSeconds) {
+        this(redisTemplate, maxResults, staleAfterSeconds, System::currentTimeMillis);
+    }
+
+    RedisGeoNearbyDriverSearch(StringRedisTemplate redisTemplate, int maxResults, long staleAfterSeconds,
+            LongSupplier clock) {
+        this.redisTemplate = redisTemplate;
+        this.maxResults = maxResults;
+        this.staleAfterMillis = TimeUnit.SECONDS.toMillis(staleAfterSeconds);
+        this.clock = clock;
+    }
+
+    @Override
+    public void updateLocation(long driverId, double latitude, double longitude, boolean isAvailable,
+            long timestampMillis) {
+        redisTemplate.execute(UPDATE_LOCATION_SCRIPT, KEYS, String.valueOf(driverId), String.valueOf(longitude),
+                String.valueOf(latitude), isAvailable ? "1" : "0", String.valueOf(clock.getAsLong()));
+    }
+
+    @Override
+    public void updateAvailability(long driverId, boolean isAvailable) {
+        redisTemplate.execute(UPDATE_AVAILABILITY_SCRIPT, KEYS, String.valueOf(driverId), isAvailable ? "1" : "0");
+    }
+
+    /**
+     * Remove drivers that sent no location for {@code stale-after-seconds}, so a
+     * driver whose app went silent is not offered forever.
+     */
+    @Scheduled(fixedDelayString = "${driver.nearby.eviction-interval-ms:30000}")
+    public void evictStale() {
+        String cutoff = String.valueOf(clock.getAsLong() - staleAfterMillis);
+        long evicted = 0;
+        Long removed;
+        do {
+            removed = redisTemplate.execute(EVICT_STALE_SCRIPT, KEYS, cutoff, String.valueOf(EVICT_BATCH_SIZE));
+            evicted += removed != null ? removed : 0;
+        } while (removed != null && removed == EVICT_BATCH_SIZE);
+        if (evicted > 0) {
+            log.info("Evicted {} drivers without recent locations from {}", evicted, AVAILABLE_DRIVERS_GEO_KEY);
+        }
+    }
+
+    @Override
+    public List<NearbyDriver> findAvailableNearby(double latitude, double longitude, double radiusInMeters) {
+        return search(latitude, longitude, radiusInMeters, maxResults);
+    }
+
+    @Override
+    public List<NearbyDriver> findAvailableNearby(double latitude, double longitude, double radiusInMeters,
+            double filterRadiusInMeters) {
+        double areaRatio = Math.pow(radiusInMeters / Math.max(filterRadiusInMeters, 1), 2);
+        int limit = (int) Math.min(Integer.MAX_VALUE, Math.ceil(maxResults * Math.max(areaRatio, 1)));
+        return search(latitude, longitude, radiusInMeters, limit);
+    }
+
+    @Override
+    public List<NearbyDriver> findNearestAvailable(double latitude, double longitude, int k,
+            double maxRadiusInMeters) {
+        // GEOSEARCH ... ASC COUNT k already stops after the k nearest members
+        return search(latitude, longitude, maxRadiusInMeters, Math.min(k, maxResults));
+    }
+
+    private List<NearbyDriver> search(double latitude, double longitude, double radiusInMeters, int limit) {
+        GeoResults<RedisGeoCommands.GeoLocation<String>> results = redisTemplate.opsForGeo().search(
+                AVAILABLE_DRIVERS_GEO_KEY,
+                GeoReference.fromCoordinate(longitude, latitude),
+                new Distance(radiusInMeters, RedisGeoCommands.DistanceUnit.METERS),
+                RedisGeoCommands.GeoSearchCommandArgs.newGeoSearchArgs()
+                        .includeCoordinates()
+                        .includeDistance()
+                        .sortAscending()
+                        .limit(limit));
+
+        List<NearbyDriver> nearby = new ArrayList<>();
+        if (results == null) {
+            return nearby;
+        }
+
+        for (GeoResult<RedisGeoCommands.GeoLocation<String>> result : results) {
+            RedisGeoCommands.GeoLocation<String> location = result.getContent();
+            try {
+                nearby.add(new NearbyDriver(
+                        Long.parseLong(location.getName()),
+                        location.getPoint().getY(),
+                        location.getPoint().getX(),
+                        0L,
+                        result.getDistance().getValue()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed member in {}: {}", AVAILABLE_DRIVERS_GEO_KEY, location.getName());
+            }
+        }
+        return nearby;
+    }
+}
@@ -0,0 +1,12 @@
+package com.swifteats.driver.spatial;
+
+/**
+ * Available-driver counts per grid block, as parallel arrays of block centers
+ * and counts. Blocks without available drivers are left out.
+ */
+public record SupplyDensity(
+        double blockSizeDegrees,
+        double[] latitudes,
+        double[] longitudes,
+        int[] counts) {
+}
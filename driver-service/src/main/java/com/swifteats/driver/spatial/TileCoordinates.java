@@ -0,0 +1,30 @@
+package com.swifteats.driver.spatial;
+
+/**
+ * Web-mercator ("slippy map") tile address, the same scheme map clients use
+ * to fetch their base tiles, so a viewport maps directly onto tile topics.
+ */
+public record TileCoordinates(int zoom, int x, int y) {
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    public static TileCoordinates of(double latitude, double longitude, int zoom) {
+        int tiles = 1 << zoom;
+        double clampedLatitude = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+        double latitudeRadians = Math.toRadians(clampedLatitude);
+
+        int x = (int) Math.floor((longitude + 180) / 360 * tiles);
+        int y = (int) Math.floor(
+                (1 - Math.log(Math.tan(latitudeRadians) + 1 / Math.cos(latitudeRadians)) / Math.PI) / 2 * tiles);
+
+        return new TileCoordinates(zoom, clamp(x, tiles), clamp(y, tiles));
+    }
+
+    public String topic() {
+        return "/topic/tiles/" + zoom + "/" + x + "/" + y;
+    }
+
+    private static int clamp(int value, int tiles) {
+        return Math.max(0, Math.min(tiles - 1, value));
+    }
+}
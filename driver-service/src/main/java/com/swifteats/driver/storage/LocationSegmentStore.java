@@ -0,0 +1,277 @@
+package com.swifteats.driver.storage;
+
+import com.swifteats.driver.model.LocationSample;
+import com.swifteats.driver.model.LocationSegmentBlock;
+import com.swifteats.driver.repository.DriverLocationSegmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Location history stored as time segments instead of one row per point
+ * ({@code driver.location.storage=segments}). Points of a driver are grouped by
+ * fixed time windows; each segment is one row in
+ * {@code driver_location_segments} holding the points encoded with
+ * {@link LocationTrackCodec}, which takes roughly a tenth of the space of the
+ * row-per-point table and one index entry per segment.
+ *
+ * <p>Points are buffered per driver and segment and appended to the stored
+ * segment as one encoded block once the buffer is old or large enough, so a
+ * block covers many points and the per-block overhead stays small. Reads merge
+ * the stored segments with the points still buffered.
+ */
+@Service
+@Slf4j
+public class LocationSegmentStore {
+
+    public static final String STORAGE_SEGMENTS = "segments";
+
+    // Upper bound for open-ended reads
+    private static final LocalDateTime UNBOUNDED = LocalDateTime.of(9999, 1, 1, 0, 0);
+    private static final int READ_BATCH_SEGMENTS = 16;
+    private static final int WRITE_BATCH_BLOCKS = 500;
+
+    private final DriverLocationSegmentRepository segmentRepository;
+    private final boolean enabled;
+    private final long segmentLengthMillis;
+    private final long maxBufferNanos;
+    private final int maxBufferedPoints;
+    private final LongSupplier clock;
+
+    private final Map<Long, DriverTrack> tracks = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferedPoints = new AtomicInteger();
+
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Counter bytesCounter;
+
+    public LocationSegmentStore(
+            DriverLocationSegmentRepository segmentRepository,
+            MeterRegistry meterRegistry,
+            @Value("${driver.location.storage:rows}") String storage,
+            @Value("${driver.location.segments.length-minutes:15}") int segmentLengthMinutes,
+            @Value("${driver.location.segments.max-buffer-seconds:60}") long maxBufferSeconds,
+            @Value("${driver.location.segments.max-buffered-points:256}") int maxBufferedPoints) {
+        this(segmentRepository, meterRegistry, STORAGE_SEGMENTS.equalsIgnoreCase(storage), segmentLengthMinutes,
+                maxBufferSeconds, maxBufferedPoints, System::nanoTime);
+    }
+
+    LocationSegmentStore(DriverLocationSegmentRepository segmentRepository, MeterRegistry meterRegistry,
+            boolean enabled, int segmentLengthMinutes, long maxBufferSeconds, int maxBufferedPoints,
+            LongSupplier clock) {
+        if (segmentLengthMinutes <= 0) {
+            throw new IllegalArgumentException("Segment length must be positive: " + segmentLengthMinutes);
+        }
+        this.segmentRepository = segmentRepository;
+        this.enabled = enabled;
+        this.segmentLengthMillis = TimeUnit.MINUTES.toMillis(segmentLengthMinutes);
+        this.maxBufferNanos = TimeUnit.SECONDS.toNanos(maxBufferSeconds);
+        this.maxBufferedPoints = maxBufferedPoints;
+        this.clock = clock;
+
+        Gauge.builder("driver.location.segments.buffered", bufferedPoints, AtomicInteger::get)
+                .description("Location points waiting to be appended to their segment")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("driver.location.segments.points")
+                .tag("result", "written")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("driver.location.segments.points")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.bytesCounter = Counter.builder("driver.location.segments.bytes")
+                .description("Encoded bytes appended to location segments")
+                .register(meterRegistry);
+
+        if (enabled) {
+            log.info("Location history stored in {} minute segments", segmentLengthMinutes);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffer accepted points for their segments.
+     */
+    public void append(Collection<LocationSample> samples) {
+        long now = clock.getAsLong();
+        for (LocationSample sample : samples) {
+            long segmentStart = segmentStartMillis(sample.timestamp());
+            // Added under the map lock, so a concurrent flush cannot drop the track in between
+            tracks.compute(sample.driverId(), (id, track) -> {
+                DriverTrack current = track != null ? track : new DriverTrack();
+                current.add(segmentStart, sample, now);
+                return current;
+            });
+        }
+        bufferedPoints.addAndGet(samples.size());
+    }
+
+    @Scheduled(fixedDelayString = "${driver.location.segments.flush-interval-ms:1000}")
+    public void flush() {
+        flush(false);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush(true);
+    }
+
+    /**
+     * Points of a driver with timestamps in {@code [since, until)}, oldest first.
+     * A {@code null} {@code until} reads to the end of the track.
+     */
+    public List<LocationSample> findHistory(long driverId, LocalDateTime since, LocalDateTime until) {
+        List<LocationSample> points = new ArrayList<>();
+        visitHistory(driverId, since, until, points::add);
+        return points;
+    }
+
+    /**
+     * Visit the points of a driver with timestamps in {@code [since, until)} in
+     * timestamp order, decoding a bounded number of segments at a time. Stops as
+     * soon as the visitor returns {@code false}.
+     */
+    public void visitHistory(long driverId, LocalDateTime since, LocalDateTime until,
+            Predicate<LocationSample> visitor) {
+        LocalDateTime end = until != null ? until : UNBOUNDED;
+        LocalDateTime from = LocationTrackCodec.fromEpochMillis(segmentStartMillis(since));
+
+        while (from.isBefore(end)) {
+            List<LocationSegmentBlock> stored = segmentRepository.findSegments(driverId, from, end,
+                    READ_BATCH_SEGMENTS);
+            // Buffered points are merged up to where this batch of stored segments ends
+            LocalDateTime batchEnd = stored.size() == READ_BATCH_SEGMENTS
+                    ? stored.get(stored.size() - 1).segmentStart().plus(Duration.ofMillis(segmentLengthMillis))
+                    : end;
+
+            List<LocationSample> points = new ArrayList<>();
+            for (LocationSegmentBlock segment : stored) {
+                points.addAll(LocationTrackCodec.decode(driverId, segment.data()));
+            }
+            DriverTrack track = tracks.get(driverId);
+            if (track != null) {
+                track.collect(LocationTrackCodec.toEpochMillis(from), LocationTrackCodec.toEpochMillis(batchEnd),
+                        points);
+            }
+            points.sort(Comparator.comparing(LocationSample::timestamp));
+
+            for (LocationSample point : points) {
+                if (!point.timestamp().isBefore(since) && point.timestamp().isBefore(end) && !visitor.test(point)) {
+                    return;
+                }
+            }
+            from = batchEnd;
+        }
+    }
+
+    private void flush(boolean all) {
+        if (tracks.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        List<LocationSegmentBlock> blocks = new ArrayList<>();
+
+        for (Long driverId : tracks.keySet()) {
+            tracks.computeIfPresent(driverId, (id, track) -> {
+                track.drain(now, all, (segmentStart, points) -> {
+                    points.sort(Comparator.comparing(LocationSample::timestamp));
+                    blocks.add(new LocationSegmentBlock(id, LocationTrackCodec.fromEpochMillis(segmentStart),
+                            points.size(), LocationTrackCodec.encode(points)));
+                });
+                return track.isEmpty() ? null : track;
+            });
+        }
+
+        for (int from = 0; from < blocks.size(); from += WRITE_BATCH_BLOCKS) {
+            write(blocks.subList(from, Math.min(from + WRITE_BATCH_BLOCKS, blocks.size())));
+        }
+    }
+
+    private void write(List<LocationSegmentBlock> blocks) {
+        int points = blocks.stream().mapToInt(LocationSegmentBlock::pointCount).sum();
+        bufferedPoints.addAndGet(-points);
+        try {
+            segmentRepository.appendAll(blocks);
+            writtenCounter.increment(points);
+            bytesCounter.increment(blocks.stream().mapToInt(block -> block.data().length).sum());
+        } catch (DataAccessException e) {
+            failedCounter.increment(points);
+            log.error("Dropping {} location points in {} segments: {}", points, blocks.size(), e.getMessage());
+        }
+    }
+
+    private long segmentStartMillis(LocalDateTime timestamp) {
+        return Math.floorDiv(LocationTrackCodec.toEpochMillis(timestamp), segmentLengthMillis) * segmentLengthMillis;
+    }
+
+    @FunctionalInterface
+    private interface SegmentConsumer {
+        void accept(long segmentStartMillis, List<LocationSample> points);
+    }
+
+    /**
+     * Buffered points of one driver, per segment start.
+     */
+    private final class DriverTrack {
+        private final TreeMap<Long, PendingSegment> segments = new TreeMap<>();
+
+        synchronized void add(long segmentStart, LocationSample sample, long now) {
+            segments.computeIfAbsent(segmentStart, start -> new PendingSegment(now)).points.add(sample);
+        }
+
+        synchronized void collect(long fromMillis, long untilMillis, List<LocationSample> target) {
+            for (PendingSegment segment : segments.subMap(fromMillis, untilMillis).values()) {
+                target.addAll(segment.points);
+            }
+        }
+
+        synchronized void drain(long now, boolean all, SegmentConsumer consumer) {
+            Iterator<Map.Entry<Long, PendingSegment>> iterator = segments.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, PendingSegment> entry = iterator.next();
+                PendingSegment segment = entry.getValue();
+                if (all || segment.points.size() >= maxBufferedPoints
+                        || now - segment.bufferedSinceNanos >= maxBufferNanos) {
+                    iterator.remove();
+                    consumer.accept(entry.getKey(), segment.points);
+                }
+            }
+        }
+
+        synchronized boolean isEmpty() {
+            return segments.isEmpty();
+        }
+    }
+
+    private static final class PendingSegment {
+        private final List<LocationSample> points = new ArrayList<>();
+        private final long bufferedSinceNanos;
+
+        PendingSegment(long bufferedSinceNanos) {
+            this.bufferedSinceNanos = bufferedSinceNanos;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.swifteats.driver.storage;
+
+import com.swifteats.driver.model.LocationSample;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of a driver's location points. Coordinates are
+ * stored as fixed-point integers (1e-6 degrees, about 11 cm), heading, speed
+ * and accuracy in tenths, and timestamps in milliseconds. Every value is
+ * written as the difference to the previous point, zigzag- and varint-encoded,
+ * so a point moving a few meters per second takes around ten bytes.
+ *
+ * <p>An encoded track is a sequence of independent blocks, each starting from
+ * zero: {@code count, point*}. Blocks can therefore be appended to a stored
+ * track by plain byte concatenation, and {@link #decode} reads all of them.
+ * Within a block each point is {@code flags, Δtime, Δlat, Δlng} followed by the
+ * deltas of the optional fields present in {@code flags}.
+ */
+public final class LocationTrackCodec {
+
+    static final double COORDINATE_SCALE = 1e6;
+    static final double VALUE_SCALE = 10;
+
+    private static final int HAS_HEADING = 1;
+    private static final int HAS_SPEED = 1 << 1;
+    private static final int HAS_ACCURACY = 1 << 2;
+
+    private LocationTrackCodec() {
+    }
+
+    /**
+     * Encode one block. Points should be in timestamp order for the best ratio;
+     * timestamps are truncated to milliseconds.
+     */
+    public static byte[] encode(List<LocationSample> samples) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4 + samples.size() * 12);
+        writeUnsigned(out, samples.size());
+
+        long previousTime = 0;
+        long previousLatitude = 0;
+        long previousLongitude = 0;
+        long previousHeading = 0;
+        long previousSpeed = 0;
+        long previousAccuracy = 0;
+
+        for (LocationSample sample : samples) {
+            int flags = (sample.heading() != null ? HAS_HEADING : 0)
+                    | (sample.speed() != null ? HAS_SPEED : 0)
+                    | (sample.accuracy() != null ? HAS_ACCURACY : 0);
+            out.write(flags);
+
+            long time = toEpochMillis(sample.timestamp());
+            long latitude = Math.round(sample.latitude() * COORDINATE_SCALE);
+            long longitude = Math.round(sample.longitude() * COORDINATE_SCALE);
+            writeSigned(out, time - previousTime);
+            writeSigned(out, latitude - previousLatitude);
+            writeSigned(out, longitude - previousLongitude);
+            previousTime = time;
+            previousLatitude = latitude;
+            previousLongitude = longitude;
+
+            if (sample.heading() != null) {
+                long heading = Math.round(sample.heading() * VALUE_SCALE);
+                writeSigned(out, heading - previousHeading);
+                previousHeading = heading;
+            }
+            if (sample.speed() != null) {
+                long speed = Math.round(sample.speed() * VALUE_SCALE);
+                writeSigned(out, speed - previousSpeed);
+                previousSpeed = speed;
+            }
+            if (sample.accuracy() != null) {
+                long accuracy = Math.round(sample.accuracy() * VALUE_SCALE);
+                writeSigned(out, accuracy - previousAccuracy);
+                previousAccuracy = accuracy;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode every block of an encoded track, in stored order.
+     *
+     * @throws IllegalArgumentException if the data is truncated or malformed
+     */
+    public static List<LocationSample> decode(long driverId, byte[] data) {
+        Reader in = new Reader(data);
+        List<LocationSample> samples = new ArrayList<>();
+
+        while (in.hasMore()) {
+            long count = in.readUnsigned();
+            long time = 0;
+            long latitude = 0;
+            long longitude = 0;
+            long heading = 0;
+            long speed = 0;
+            long accuracy = 0;
+
+            for (long i = 0; i < count; i++) {
+                int flags = in.readByte();
+                time += in.readSigned();
+                latitude += in.readSigned();
+                longitude += in.readSigned();
+
+                Double headingValue = null;
+                Double speedValue = null;
+                Double accuracyValue = null;
+                if ((flags & HAS_HEADING) != 0) {
+                    heading += in.readSigned();
+                    headingValue = heading / VALUE_SCALE;
+                }
+                if ((flags & HAS_SPEED) != 0) {
+                    speed += in.readSigned();
+                    speedValue = speed / VALUE_SCALE;
+                }
+                if ((flags & HAS_ACCURACY) != 0) {
+                    accuracy += in.readSigned();
+                    accuracyValue = accuracy / VALUE_SCALE;
+                }
+
+                samples.add(new LocationSample(driverId, latitude / COORDINATE_SCALE, longitude / COORDINATE_SCALE,
+                        headingValue, speedValue, accuracyValue, fromEpochMillis(time)));
+            }
+        }
+        return samples;
+    }
+
+    // Zone-independent, so stored tracks decode to the same LocalDateTime everywhere
+    static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private static void writeSigned(ByteArrayOutputStream out, long value) {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeUnsigned(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        boolean hasMore() {
+            return position < data.length;
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated location track at byte " + position);
+            }
+            return data[position++] & 0xff;
+        }
+
+        long readSigned() {
+            long raw = readUnsigned();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        long readUnsigned() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at byte " + position);
+        }
+    }
+}
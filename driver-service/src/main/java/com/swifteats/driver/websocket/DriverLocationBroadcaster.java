@@ -0,0 +1,252 @@
+package com.swifteats.driver.websocket;
+
+import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.dto.TileUpdateDTO;
+import com.swifteats.driver.prediction.MotionPredictor;
+import com.swifteats.driver.spatial.TileCoordinates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Conflating broadcaster for driver locations. Updates only replace the
+ * pending position of their driver; on every tick the latest positions are
+ * sent as one frame per tile topic ({@code /topic/tiles/{z}/{x}/{y}}), one
+ * frame per driver topic and, unless disabled, one array frame to
+ * {@value #ALL_LOCATIONS_TOPIC}, however many updates arrived in between.
+ *
+ * <p>When a driver crosses a tile boundary, the frame of the old tile lists it
+ * under {@code left} and the frame of the new tile under {@code entered}. Tiles
+ * only show drivers available for dispatch: a position published without a
+ * tile, a {@link #removeFromTiles} call on a status change and a driver silent
+ * for {@code tile-stale-seconds} all list the driver under {@code left} of its
+ * last tile and forget it.
+ *
+ * <p>Frames for topics without a subscriber on this instance are skipped before
+ * they are serialized. Tile frames also leave out positions that map clients
+ * already extrapolate closely enough (see {@link MotionPredictor#shouldBroadcast}),
+ * unless the driver changed tiles; the driver and firehose topics predate
+ * prediction, their clients do not extrapolate and they get every position.
+ */
+@Component
+@Slf4j
+public class DriverLocationBroadcaster {
+
+    public static final String ALL_LOCATIONS_TOPIC = "/topic/location/all";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StompSubscriptionTracker subscriptionTracker;
+    private final MotionPredictor motionPredictor;
+    private final boolean firehoseEnabled;
+    private final Map<Long, PendingLocation> pending = new ConcurrentHashMap<>();
+    private final Map<Long, TileMembership> tilesByDriver = new ConcurrentHashMap<>();
+    private final Queue<Long> departures = new ConcurrentLinkedQueue<>();
+    private final long tileStaleMillis;
+    private final LongSupplier clock;
+
+    private final Counter receivedCounter;
+    private final Counter sentCounter;
+
+    public DriverLocationBroadcaster(
+            SimpMessagingTemplate messagingTemplate,
+            StompSubscriptionTracker subscriptionTracker,
+            MotionPredictor motionPredictor,
+            MeterRegistry meterRegistry,
+            @Value("${driver.broadcast.firehose-enabled:true}") boolean firehoseEnabled,
+            @Value("${driver.broadcast.tile-stale-seconds:60}") long tileStaleSeconds) {
+        this(messagingTemplate, subscriptionTracker, motionPredictor, meterRegistry, firehoseEnabled,
+                tileStaleSeconds, System::currentTimeMillis);
+    }
+
+    DriverLocationBroadcaster(
+            SimpMessagingTemplate messagingTemplate,
+            StompSubscriptionTracker subscriptionTracker,
+            MotionPredictor motionPredictor,
+            MeterRegistry meterRegistry,
+            boolean firehoseEnabled,
+            long tileStaleSeconds,
+            LongSupplier clock) {
+        this.messagingTemplate = messagingTemplate;
+        this.subscriptionTracker = subscriptionTracker;
+        this.motionPredictor = motionPredictor;
+        this.firehoseEnabled = firehoseEnabled;
+        this.tileStaleMillis = TimeUnit.SECONDS.toMillis(tileStaleSeconds);
+        this.clock = clock;
+        this.receivedCounter = Counter.builder("driver.location.broadcast.updates")
+                .description("Location updates handed to the broadcaster")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("driver.location.broadcast.frames")
+                .description("STOMP frames sent by the broadcaster")
+                .register(meterRegistry);
+    }
+
+    public static String driverLocationTopic(Long driverId) {
+        return "/topic/driver/" + driverId + "/location";
+    }
+
+    /**
+     * Queue the latest position of a driver for the next tick.
+     *
+     * @param tile the tile to show the driver in, or null if the driver is not
+     *             available and should only be sent to its own topic
+     */
+    public void publish(LocationDTO location, TileCoordinates tile) {
+        receivedCounter.increment();
+        Long driverId = location.getDriverId();
+        TileMembership membership = tilesByDriver.get(driverId);
+        if (membership != null && membership.tile.equals(tile)) {
+            membership.lastSeenMillis = clock.getAsLong();
+        }
+        boolean showInTile = true;
+        if (Objects.equals(tile, membership != null ? membership.tile : null)) {
+            showInTile = tile != null && motionPredictor.shouldBroadcast(driverId, location.getLatitude(),
+                    location.getLongitude(), location.getHeading(), location.getSpeed());
+        } else if (tile != null) {
+            // Subscribers of the new tile have nothing to extrapolate yet
+            motionPredictor.recordBroadcast(driverId, location.getLatitude(), location.getLongitude(),
+                    location.getHeading(), location.getSpeed());
+        }
+        PendingLocation update = new PendingLocation(location, tile, showInTile);
+        // A position the tile still has to show is not hidden by a newer one clients could extrapolate
+        pending.merge(driverId, update, (queued, next) -> queued.showInTile() && !next.showInTile()
+                ? new PendingLocation(next.location(), next.tile(), true)
+                : next);
+    }
+
+    /**
+     * Take a driver off the tile topics, e.g. when it goes BUSY or OFFLINE. Its
+     * last tile lists it under {@code left} on the next tick.
+     */
+    public void removeFromTiles(Long driverId) {
+        // A position queued before the status change still goes to the driver topic, but to no tile
+        pending.computeIfPresent(driverId, (id, queued) -> new PendingLocation(queued.location(), null, false));
+        departures.add(driverId);
+    }
+
+    /**
+     * Take drivers that published nothing for {@code tile-stale-seconds} off the
+     * tile topics, so crashed apps do not linger on maps and in memory.
+     */
+    @Scheduled(fixedDelayString = "${driver.broadcast.tile-sweep-interval-ms:30000}")
+    public void removeStaleFromTiles() {
+        long cutoff = clock.getAsLong() - tileStaleMillis;
+        tilesByDriver.forEach((driverId, membership) -> {
+            if (membership.lastSeenMillis < cutoff) {
+                departures.add(driverId);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${driver.broadcast.interval-ms:250}")
+    public void flush() {
+        if (pending.isEmpty() && departures.isEmpty()) {
+            return;
+        }
+
+        List<LocationDTO> latest = new ArrayList<>(pending.size());
+        Map<TileCoordinates, TileUpdateDTO> tileFrames = new HashMap<>();
+
+        Long departed;
+        while ((departed = departures.poll()) != null) {
+            TileMembership membership = tilesByDriver.remove(departed);
+            if (membership != null) {
+                tileFrames.computeIfAbsent(membership.tile, DriverLocationBroadcaster::emptyFrame)
+                        .getLeft().add(departed);
+            }
+        }
+
+        for (Map.Entry<Long, PendingLocation> entry : pending.entrySet()) {
+            // Only clear the entry if no newer position arrived while flushing
+            if (!pending.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            Long driverId = entry.getKey();
+            LocationDTO location = entry.getValue().location();
+            TileCoordinates tile = entry.getValue().tile();
+            latest.add(location);
+            if (!entry.getValue().showInTile()) {
+                continue;
+            }
+
+            TileMembership previous = tile != null
+                    ? tilesByDriver.put(driverId, new TileMembership(tile, clock.getAsLong()))
+                    : tilesByDriver.remove(driverId);
+            TileCoordinates previousTile = previous != null ? previous.tile : null;
+            if (tile != null) {
+                TileUpdateDTO frame = tileFrames.computeIfAbsent(tile, DriverLocationBroadcaster::emptyFrame);
+                frame.getLocations().add(location);
+                if (!tile.equals(previousTile)) {
+                    frame.getEntered().add(driverId);
+                }
+            }
+            if (previousTile != null && !previousTile.equals(tile)) {
+                tileFrames.computeIfAbsent(previousTile, DriverLocationBroadcaster::emptyFrame)
+                        .getLeft().add(driverId);
+            }
+        }
+
+        try {
+            int frames = 0;
+            if (firehoseEnabled && !latest.isEmpty() && subscriptionTracker.shouldSend(ALL_LOCATIONS_TOPIC)) {
+                messagingTemplate.convertAndSend(ALL_LOCATIONS_TOPIC, latest);
+                frames++;
+            }
+            for (Map.Entry<TileCoordinates, TileUpdateDTO> tileFrame : tileFrames.entrySet()) {
+                String topic = tileFrame.getKey().topic();
+                if (subscriptionTracker.shouldSend(topic)) {
+                    messagingTemplate.convertAndSend(topic, tileFrame.getValue());
+                    frames++;
+                }
+            }
+            for (LocationDTO location : latest) {
+                String topic = driverLocationTopic(location.getDriverId());
+                if (subscriptionTracker.shouldSend(topic)) {
+                    messagingTemplate.convertAndSend(topic, location);
+                    frames++;
+                }
+            }
+            sentCounter.increment(frames);
+        } catch (Exception e) {
+            log.error("Failed to broadcast {} driver locations", latest.size(), e);
+        }
+    }
+
+    private static TileUpdateDTO emptyFrame(TileCoordinates tile) {
+        return TileUpdateDTO.builder()
+                .zoom(tile.zoom())
+                .x(tile.x())
+                .y(tile.y())
+                .locations(new ArrayList<>())
+                .entered(new ArrayList<>())
+                .left(new ArrayList<>())
+                .build();
+    }
+
+    private record PendingLocation(LocationDTO location, TileCoordinates tile, boolean showInTile) {
+    }
+
+    private static final class TileMembership {
+        private final TileCoordinates tile;
+        private volatile long lastSeenMillis;
+
+        TileMembership(TileCoordinates tile, long lastSeenMillis) {
+            this.tile = tile;
+            this.lastSeenMillis = lastSeenMillis;
+        }
+    }
+}
@@ -4,11 +4,11 @@ import com.swifteats.driver.dto.LocationDTO;
 import com.swifteats.driver.dto.LocationUpdateDTO;
 import com.swifteats.driver.messaging.DriverMessagingService;
 import com.swifteats.driver.service.DriverService;
+import com.swifteats.driver.service.LocationIngestionExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 @Controller
@@ -17,26 +17,30 @@ import org.springframework.stereotype.Controller;
 public class DriverLocationWebSocketHandler {
 
     private final DriverService driverService;
-    private final SimpMessagingTemplate messagingTemplate;
     private final DriverMessagingService messagingService;
+    private final LocationIngestionExecutor ingestionExecutor;
 
     @MessageMapping("/location/update")
     public void handleLocationUpdate(@Payload LocationUpdateDTO locationUpdate) {
+        if (locationUpdate.getDriverId() == null) {
+            log.warn("Ignoring WebSocket location update without driver ID: {}", locationUpdate);
+            return;
+        }
+
+        // Hand off to the driver's ingestion lane so updates of one driver stay ordered
+        ingestionExecutor.submit(locationUpdate.getDriverId(), () -> processLocationUpdate(locationUpdate));
+    }
+
+    private void processLocationUpdate(LocationUpdateDTO locationUpdate) {
         try {
             log.debug("Received location update via WebSocket: {}", locationUpdate);
 
-            // Update location in database and cache
+            // Update location in cache and storage; subscribers are notified by the broadcaster
             LocationDTO updatedLocation = driverService.updateDriverLocation(locationUpdate);
-
-            // Broadcast to all subscribers
-            messagingTemplate.convertAndSend(
-                    "/topic/location/all",
-                    updatedLocation);
-
-            // Also broadcast to driver-specific channel
-            messagingTemplate.convertAndSend(
-                    "/topic/driver/" + locationUpdate.getDriverId() + "/location",
-                    updatedLocation);
+            if (updatedLocation == null) {
+                log.debug("Location update for driver {} dropped by ingestion filter", locationUpdate.getDriverId());
+                return;
+            }
 
             // Publish to message queue for other services
             messagingService.publishDriverLocation(updatedLocation, locationUpdate.getDriverId());
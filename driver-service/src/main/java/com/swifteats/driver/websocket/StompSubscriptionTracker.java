@@ -0,0 +1,130 @@
+package com.swifteats.driver.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Destinations with at least one STOMP subscriber on this instance, tracked
+ * from the session subscribe, unsubscribe and disconnect events. Publishers ask
+ * {@link #shouldSend} before converting a payload, so frames for the many
+ * driver topics nobody watches are never serialized.
+ *
+ * <p>The simple broker is local to the instance, so local subscriptions are
+ * exactly the ones a send can reach. Pattern subscriptions such as
+ * {@code /topic/driver/*}{@code /location} are matched the way the broker
+ * matches them.
+ */
+@Component
+@Slf4j
+public class StompSubscriptionTracker {
+
+    private final boolean enabled;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    // session id -> subscription id -> destination
+    private final Map<String, Map<String, String>> subscriptionsBySession = new ConcurrentHashMap<>();
+    private final Map<String, Integer> subscriberCounts = new ConcurrentHashMap<>();
+    private final Map<String, Integer> patternCounts = new ConcurrentHashMap<>();
+
+    private final Counter skippedCounter;
+
+    public StompSubscriptionTracker(
+            MeterRegistry meterRegistry,
+            @Value("${driver.broadcast.skip-unsubscribed:true}") boolean enabled) {
+        this.enabled = enabled;
+
+        Gauge.builder("driver.websocket.subscribed_destinations", subscriberCounts, Map::size)
+                .description("Destinations with at least one subscriber")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("driver.websocket.sends.skipped")
+                .description("Frames not sent because their destination had no subscribers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a frame for the destination would reach anyone. Skipped sends are
+     * counted.
+     */
+    public boolean shouldSend(String destination) {
+        if (!enabled || hasSubscribers(destination)) {
+            return true;
+        }
+        skippedCounter.increment();
+        return false;
+    }
+
+    public boolean hasSubscribers(String destination) {
+        if (subscriberCounts.containsKey(destination)) {
+            return true;
+        }
+        for (String pattern : patternCounts.keySet()) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        String destination = accessor.getDestination();
+        if (sessionId == null || subscriptionId == null || destination == null) {
+            return;
+        }
+
+        String previous = subscriptionsBySession.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            decrement(previous);
+        }
+        countsFor(destination).merge(destination, 1, Integer::sum);
+        log.debug("Session {} subscribed to {}", sessionId, destination);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = accessor.getSessionId() != null
+                ? subscriptionsBySession.get(accessor.getSessionId())
+                : null;
+        if (subscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        String destination = subscriptions.remove(accessor.getSubscriptionId());
+        if (destination != null) {
+            decrement(destination);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = subscriptionsBySession.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    private void decrement(String destination) {
+        countsFor(destination).computeIfPresent(destination, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Map<String, Integer> countsFor(String destination) {
+        return pathMatcher.isPattern(destination) ? patternCounts : subscriberCounts;
+    }
+}
@@ -4,3 +4,12 @@
 
 -- Add a dummy statement to avoid empty script error
 SELECT 1;
+
+-- Delta-encoded location tracks, used when driver.location.storage=segments
+CREATE TABLE IF NOT EXISTS driver_location_segments (
+    driver_id BIGINT NOT NULL,
+    segment_start TIMESTAMP NOT NULL,
+    point_count INTEGER NOT NULL,
+    data BYTEA NOT NULL,
+    PRIMARY KEY (driver_id, segment_start)
+);
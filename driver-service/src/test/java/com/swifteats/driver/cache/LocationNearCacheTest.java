@@ -0,0 +1,126 @@
+package com.swifteats.driver.cache;
+
+import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.model.LocationSample;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LocationNearCacheTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 8, 13, 10, 0, 0);
+
+    private final AtomicLong clock = new AtomicLong();
+    private StringRedisTemplate stringRedisTemplate;
+    private RecentTrackCache recentTracks;
+    private LocationNearCache nearCache;
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        recentTracks = new RecentTrackCache(new SimpleMeterRegistry(), true, 4, 100, 30, clock::get);
+        nearCache = new LocationNearCache(stringRedisTemplate, recentTracks, new SimpleMeterRegistry(), true, 1024,
+                1000, clock::get);
+    }
+
+    @Test
+    void get_shouldReturnEntryUntilTtlExpires() {
+        // Arrange
+        LocationDTO location = location(1L, NOW);
+        nearCache.put(1L, location);
+
+        // Act & Assert
+        assertSame(location, nearCache.get(1L));
+        assertNull(nearCache.get(2L));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+        assertNull(nearCache.get(1L));
+    }
+
+    @Test
+    void put_shouldNotReplaceNewerLocation() {
+        // Arrange
+        LocationDTO newer = location(1L, NOW);
+        nearCache.update(1L, newer);
+
+        // Act: a slower read populates the cache with an older value
+        nearCache.put(1L, location(1L, NOW.minusSeconds(5)));
+
+        // Assert
+        assertSame(newer, nearCache.get(1L));
+    }
+
+    @Test
+    void publishInvalidations_shouldAnnounceIngestedDriversOnceAndIgnoreOwnMessage() {
+        // Arrange
+        nearCache.update(1L, location(1L, NOW));
+        nearCache.update(2L, location(2L, NOW));
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+
+        // Act
+        nearCache.publishInvalidations();
+        nearCache.publishInvalidations();
+
+        // Assert
+        verify(stringRedisTemplate, times(1)).convertAndSend(eq(LocationNearCache.INVALIDATION_CHANNEL),
+                payload.capture());
+        assertTrue(payload.getValue().endsWith(",1,2") || payload.getValue().endsWith(",2,1"));
+
+        nearCache.onMessage(new DefaultMessage(LocationNearCache.INVALIDATION_CHANNEL.getBytes(),
+                payload.getValue().getBytes(StandardCharsets.UTF_8)), null);
+        assertNotNull(nearCache.get(1L));
+        assertNotNull(nearCache.get(2L));
+    }
+
+    @Test
+    void onMessage_fromOtherInstance_shouldInvalidateListedDrivers() {
+        // Arrange
+        nearCache.put(1L, location(1L, NOW));
+        nearCache.put(2L, location(2L, NOW));
+        nearCache.put(3L, location(3L, NOW));
+        byte[] body = "other-instance,1,3".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        nearCache.onMessage(new DefaultMessage(LocationNearCache.INVALIDATION_CHANNEL.getBytes(), body), null);
+
+        // Assert
+        assertNull(nearCache.get(1L));
+        assertNotNull(nearCache.get(2L));
+        assertNull(nearCache.get(3L));
+    }
+
+    @Test
+    void onMessage_fromOtherInstance_shouldDropRecentTrackWithGap() {
+        // Arrange
+        recentTracks.record(new LocationSample(1L, 37.7749, -122.4194, null, null, null, NOW));
+        assertNotNull(recentTracks.findSince(1L, NOW));
+        byte[] body = "other-instance,1".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        nearCache.onMessage(new DefaultMessage(LocationNearCache.INVALIDATION_CHANNEL.getBytes(), body), null);
+
+        // Assert: the other instance's point is missing from the buffer, so history goes to the database
+        assertNull(recentTracks.findSince(1L, NOW));
+    }
+
+    private static LocationDTO location(Long driverId, LocalDateTime timestamp) {
+        return LocationDTO.builder()
+                .driverId(driverId)
+                .latitude(37.7749)
+                .longitude(-122.4194)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.swifteats.driver.cache;
+
+import com.swifteats.driver.dto.DriverDTO;
+import com.swifteats.driver.spatial.NearbyDriver;
+import com.swifteats.driver.spatial.NearbyDriverSearch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.AdditionalMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NearbyQueryCacheTest {
+
+    @Mock
+    private NearbyDriverSearch nearbySearch;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private NearbyQueryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new NearbyQueryCache(nearbySearch, meterRegistry, true, 100, 500, 20000, 1000, 1000, clock::get);
+    }
+
+    @Test
+    void findAvailableNearby_shouldShareOneSearchAndLoadAndFilterByExactPoint() {
+        // Arrange: one driver ~450m north, one ~200m north
+        when(nearbySearch.findAvailableNearby(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of(
+                new NearbyDriver(2L, 37.77894, -122.4194, 1L, 0),
+                new NearbyDriver(1L, 37.7767, -122.4194, 1L, 0)));
+
+        // Act
+        List<DriverDTO> first = cache.findAvailableNearby(37.7749, -122.4194, 300, this::loadDrivers);
+        List<DriverDTO> second = cache.findAvailableNearby(37.77492, -122.41942, 500, this::loadDrivers);
+
+        // Assert: the second request neither searched nor loaded drivers again
+        verify(nearbySearch, times(1)).findAvailableNearby(anyDouble(), anyDouble(), anyDouble(), anyDouble());
+        assertEquals(1, loads.get());
+        assertEquals(List.of(1L), first.stream().map(DriverDTO::getId).toList());
+        assertEquals(List.of(1L, 2L), second.stream().map(DriverDTO::getId).toList());
+        assertEquals(0.5, meterRegistry.get("driver.nearby.cache.hit_ratio").gauge().value());
+    }
+
+    @Test
+    void findAvailableNearby_shouldSearchWidenedRadiusButFilterToBucketRadius() {
+        // Arrange
+        when(nearbySearch.findAvailableNearby(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(List.of());
+
+        // Act
+        cache.findAvailableNearby(37.7749, -122.4194, 400, this::loadDrivers);
+
+        // Assert: 500m bucket plus the ~71m half diagonal of a 100m cell
+        verify(nearbySearch).findAvailableNearby(anyDouble(), anyDouble(), AdditionalMatchers.eq(500 + 50 * Math.sqrt(2), 1e-6),
+                eq(500.0));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void findAvailableNearby_shouldSearchAgainInTheNextWindow() {
+        // Arrange
+        when(nearbySearch.findAvailableNearby(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(List.of());
+        cache.findAvailableNearby(37.7749, -122.4194, 400, this::loadDrivers);
+
+        // Act
+        clock.addAndGet(1000);
+        cache.evictExpired();
+        cache.findAvailableNearby(37.7749, -122.4194, 400, this::loadDrivers);
+
+        // Assert
+        verify(nearbySearch, times(2)).findAvailableNearby(anyDouble(), anyDouble(), anyDouble(), anyDouble());
+        assertEquals(1.0, meterRegistry.get("driver.nearby.cache.entries").gauge().value());
+    }
+
+    @Test
+    void findAvailableNearby_shouldBypassCacheForLargeRadius() {
+        // Arrange
+        when(nearbySearch.findAvailableNearby(37.7749, -122.4194, 50000)).thenReturn(List.of());
+
+        // Act
+        cache.findAvailableNearby(37.7749, -122.4194, 50000, this::loadDrivers);
+        cache.findAvailableNearby(37.7749, -122.4194, 50000, this::loadDrivers);
+
+        // Assert
+        verify(nearbySearch, times(2)).findAvailableNearby(37.7749, -122.4194, 50000);
+    }
+
+    private Map<Long, DriverDTO> loadDrivers(List<NearbyDriver> hits) {
+        loads.incrementAndGet();
+        return hits.stream().collect(Collectors.toMap(NearbyDriver::driverId,
+                hit -> DriverDTO.builder().id(hit.driverId()).build()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.swifteats.driver.cache;
+
+import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.model.LocationSample;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentTrackCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 8, 13, 10, 0, 0, 123_456_000);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private RecentTrackCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RecentTrackCache(meterRegistry, true, 4, 100, 30, clock::get);
+    }
+
+    @Test
+    void findSince_shouldServeWindowInsideBufferAndMissOlderStart() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            cache.record(sample(1L, i));
+        }
+
+        // Act
+        List<LocationDTO> recent = cache.findSince(1L, START.plusSeconds(3));
+        List<LocationDTO> older = cache.findSince(1L, START.minusSeconds(1));
+
+        // Assert
+        assertEquals(List.of(START.plusSeconds(4), START.plusSeconds(8)),
+                recent.stream().map(LocationDTO::getTimestamp).toList());
+        assertEquals(37.7749 + 0.0001, recent.get(0).getLatitude(), 1e-12);
+        assertEquals(30.0, recent.get(0).getSpeed());
+        assertNull(recent.get(0).getHeading());
+        assertNull(older);
+        assertNull(cache.findSince(2L, START));
+        assertEquals(1.0, meterRegistry.get("driver.location.recent_track.reads")
+                .tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void findSince_shouldOnlyCoverWindowOfRetainedPointsAfterWrapping() {
+        // Arrange: capacity 4, six points
+        for (int i = 0; i < 6; i++) {
+            cache.record(sample(1L, i));
+        }
+
+        // Act & Assert: points 0 and 1 were overwritten
+        assertNull(cache.findSince(1L, START.plusSeconds(5)));
+        assertEquals(4, cache.findSince(1L, START.plusSeconds(8)).size());
+        assertEquals(2, cache.findSince(1L, START.plusSeconds(16)).size());
+        assertEquals(0, cache.findSince(1L, START.plusSeconds(30)).size());
+    }
+
+    @Test
+    void record_shouldRestartBufferOnOutOfOrderPointAndEvictIdleDrivers() {
+        // Arrange
+        cache.record(sample(1L, 5));
+        cache.record(sample(1L, 6));
+
+        // Act
+        cache.record(sample(1L, 2));
+
+        // Assert: the buffer now only covers the time since the late point
+        assertNull(cache.findSince(1L, START));
+        assertEquals(1, cache.findSince(1L, START.plusSeconds(8)).size());
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(31));
+        cache.evictIdle();
+        assertNull(cache.findSince(1L, START.plusSeconds(8)));
+    }
+
+    private static LocationSample sample(long driverId, int index) {
+        return new LocationSample(driverId, 37.7749 + index * 0.0001, -122.4194, null, 30.0, 5.0,
+                START.plusSeconds(4L * index));
+    }
+}
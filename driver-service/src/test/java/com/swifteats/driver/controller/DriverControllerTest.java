@@ -1,11 +1,25 @@
 package com.swifteats.driver.controller;
 
+import com.swifteats.driver.dto.BatchLocationUpdateDTO;
+import com.swifteats.driver.dto.BatchLocationUpdateResultDTO;
 import com.swifteats.driver.dto.DriverDTO;
 import com.swifteats.driver.dto.DriverStatusUpdateDTO;
+import com.swifteats.driver.dto.EtaDTO;
+import com.swifteats.driver.dto.GeofenceDTO;
 import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.dto.LocationHistoryPageDTO;
+import com.swifteats.driver.dto.LocationHistorySamplingDTO;
 import com.swifteats.driver.dto.LocationUpdateDTO;
+import com.swifteats.driver.dto.LocationUpdateResultDTO;
+import com.swifteats.driver.dto.NearestDriverDTO;
+import com.swifteats.driver.dto.SupplyDensityDTO;
+import com.swifteats.driver.geofence.Geofence;
+import com.swifteats.driver.geofence.GeofenceService;
+import com.swifteats.driver.geofence.GeofenceType;
 import com.swifteats.driver.model.DriverStatus;
 import com.swifteats.driver.service.DriverService;
+import com.swifteats.driver.service.DriverImportService;
+import com.swifteats.driver.service.LocationHistoryExportService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,15 +27,26 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +55,15 @@ class DriverControllerTest {
     @Mock
     private DriverService driverService;
 
+    @Mock
+    private LocationHistoryExportService historyExportService;
+
+    @Mock
+    private GeofenceService geofenceService;
+
+    @Mock
+    private DriverImportService importService;
+
     @InjectMocks
     private DriverController driverController;
 
@@ -100,14 +134,47 @@ class DriverControllerTest {
     @Test
     void updateDriverLocationBatch_shouldUpdateLocations() {
         // Arrange
-        // No need to mock anything as this is a void method
+        BatchLocationUpdateResultDTO result = BatchLocationUpdateResultDTO.builder()
+                .accepted(1)
+                .rejected(0)
+                .results(List.of(LocationUpdateResultDTO.builder()
+                        .index(0)
+                        .driverId(1L)
+                        .status(LocationUpdateResultDTO.Status.ACCEPTED)
+                        .build()))
+                .build();
+        when(driverService.updateDriverLocationBatch(batchLocationUpdates)).thenReturn(result);
 
         // Act
-        ResponseEntity<Void> response = driverController.updateDriverLocationBatch(batchLocationUpdates);
+        ResponseEntity<BatchLocationUpdateResultDTO> response = driverController
+                .updateDriverLocationBatch(new BatchLocationUpdateDTO(batchLocationUpdates));
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(driverService, times(1)).updateDriverLocation(any(LocationUpdateDTO.class));
+        assertEquals(result, response.getBody());
+        verify(driverService, times(1)).updateDriverLocationBatch(batchLocationUpdates);
+        verify(driverService, never()).updateDriverLocation(any(LocationUpdateDTO.class));
+    }
+
+    @Test
+    void updateDriverLocationBatch_shouldAcceptWrappedAndBareArrayBodies() throws Exception {
+        // Arrange
+        when(driverService.updateDriverLocationBatch(anyList()))
+                .thenReturn(BatchLocationUpdateResultDTO.builder().accepted(1).results(List.of()).build());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(driverController).build();
+        String update = "{\"driverId\": 1, \"latitude\": 37.7749, \"longitude\": -122.4194}";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/drivers/location/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"updates\": [" + update + "]}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/drivers/location/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + update + "]"))
+                .andExpect(status().isOk());
+        verify(driverService, times(2)).updateDriverLocationBatch(argThat(updates ->
+                updates.size() == 1 && updates.get(0).getDriverId().equals(1L)));
     }
 
     @Test
@@ -173,15 +240,30 @@ class DriverControllerTest {
         verify(driverService, times(1)).updateDriverLocation(testLocationUpdate);
     }
 
+    @Test
+    void updateDriverLocation_whenFiltered_shouldReturnNoContent() {
+        // Arrange
+        when(driverService.updateDriverLocation(any(LocationUpdateDTO.class))).thenReturn(null);
+
+        // Act
+        ResponseEntity<LocationDTO> response = driverController.updateDriverLocation(testLocationUpdate);
+
+        // Assert
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
     @Test
     void getDriverLocationHistory_shouldReturnLocationHistory() {
         // Arrange
         LocalDateTime since = LocalDateTime.now().minusHours(1);
         List<LocationDTO> locationHistory = List.of(testLocation);
-        when(driverService.getDriverLocationHistory(eq(1L), any(LocalDateTime.class))).thenReturn(locationHistory);
+        when(driverService.getDriverLocationHistory(eq(1L), any(LocalDateTime.class),
+                any(LocationHistorySamplingDTO.class))).thenReturn(locationHistory);
 
         // Act
-        ResponseEntity<List<LocationDTO>> response = driverController.getDriverLocationHistory(1L, since);
+        ResponseEntity<List<LocationDTO>> response = driverController.getDriverLocationHistory(1L, since,
+                null, null, null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -190,36 +272,156 @@ class DriverControllerTest {
         assertNotNull(responseBody);
         assertEquals(1, responseBody.size());
         assertEquals(testLocation, responseBody.get(0));
-        verify(driverService, times(1)).getDriverLocationHistory(eq(1L), any(LocalDateTime.class));
+        verify(driverService, times(1)).getDriverLocationHistory(eq(1L), any(LocalDateTime.class),
+                any(LocationHistorySamplingDTO.class));
+    }
+
+    @Test
+    void getDriverLocationHistory_withSamplingOptions_shouldPassThemToService() {
+        // Arrange
+        LocalDateTime since = LocalDateTime.now().minusHours(1);
+        when(driverService.getDriverLocationHistory(eq(1L), eq(since), any(LocationHistorySamplingDTO.class)))
+                .thenReturn(List.of(testLocation));
+
+        // Act
+        ResponseEntity<List<LocationDTO>> response = driverController.getDriverLocationHistory(1L, since,
+                10, 25.0, 500);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(driverService).getDriverLocationHistory(1L, since, LocationHistorySamplingDTO.builder()
+                .intervalSeconds(10)
+                .toleranceMeters(25.0)
+                .maxPoints(500)
+                .build());
+    }
+
+    @Test
+    void getDriverLocationHistoryPage_shouldReturnPageWithCursor() {
+        // Arrange
+        LocalDateTime since = LocalDateTime.now().minusHours(2);
+        LocalDateTime until = LocalDateTime.now();
+        LocationHistoryPageDTO page = LocationHistoryPageDTO.builder()
+                .items(List.of(testLocation))
+                .nextCursor("next")
+                .build();
+        when(historyExportService.getHistoryPage(1L, since, until, null, 100)).thenReturn(page);
+
+        // Act
+        ResponseEntity<LocationHistoryPageDTO> response = driverController.getDriverLocationHistoryPage(
+                1L, since, until, null, 100);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+    }
+
+    @Test
+    void getDriverLocationHistoryPage_withInvalidCursor_shouldReturnBadRequest() {
+        // Arrange
+        when(historyExportService.getHistoryPage(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class),
+                eq("garbage"), anyInt())).thenThrow(new IllegalArgumentException("Invalid history cursor"));
+
+        // Act
+        ResponseEntity<LocationHistoryPageDTO> response = driverController.getDriverLocationHistoryPage(
+                1L, null, null, "garbage", 100);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void exportDriverLocationHistory_shouldStreamFromExportService() throws Exception {
+        // Arrange
+        LocalDateTime since = LocalDateTime.now().minusDays(1);
+        LocalDateTime until = LocalDateTime.now();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = driverController.exportDriverLocationHistory(
+                1L, since, until);
+        assertNotNull(response.getBody());
+        response.getBody().writeTo(output);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("application/x-ndjson", String.valueOf(response.getHeaders().getContentType()));
+        verify(historyExportService).exportHistory(1L, since, until, output);
+    }
+
+    @Test
+    void importDrivers_shouldStreamCsvUploadThroughImportService() throws Exception {
+        // Arrange
+        InputStream body = new ByteArrayInputStream("name,email\n".getBytes());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = driverController.importDrivers("text/csv; charset=UTF-8",
+                body);
+        assertNotNull(response.getBody());
+        response.getBody().writeTo(output);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(importService).importDrivers(body, DriverImportService.Format.CSV, output);
     }
 
     @Test
     void getDriverCurrentLocation_whenLocationExists_shouldReturnLocation() {
         // Arrange
-        when(driverService.getDriverCurrentLocation(1L)).thenReturn(testLocation);
+        when(driverService.getDriverCurrentLocation(1L, false)).thenReturn(testLocation);
 
         // Act
-        ResponseEntity<LocationDTO> response = driverController.getDriverCurrentLocation(1L);
+        ResponseEntity<LocationDTO> response = driverController.getDriverCurrentLocation(1L, false);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(testLocation, response.getBody());
-        verify(driverService, times(1)).getDriverCurrentLocation(1L);
+        verify(driverService, times(1)).getDriverCurrentLocation(1L, false);
     }
 
     @Test
     void getDriverCurrentLocation_whenLocationDoesNotExist_shouldReturnNotFound() {
         // Arrange
-        when(driverService.getDriverCurrentLocation(99L)).thenReturn(null);
+        when(driverService.getDriverCurrentLocation(99L, false)).thenReturn(null);
 
         // Act
-        ResponseEntity<LocationDTO> response = driverController.getDriverCurrentLocation(99L);
+        ResponseEntity<LocationDTO> response = driverController.getDriverCurrentLocation(99L, false);
 
         // Assert
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNull(response.getBody());
-        verify(driverService, times(1)).getDriverCurrentLocation(99L);
+        verify(driverService, times(1)).getDriverCurrentLocation(99L, false);
+    }
+
+    @Test
+    void getDriverCurrentLocations_shouldReturnLocationsById() {
+        // Arrange
+        List<Long> driverIds = List.of(1L, 2L);
+        Map<Long, LocationDTO> locations = Map.of(1L, testLocation);
+        when(driverService.getDriverCurrentLocations(driverIds)).thenReturn(locations);
+
+        // Act
+        ResponseEntity<Map<Long, LocationDTO>> response = driverController.getDriverCurrentLocations(driverIds);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(locations, response.getBody());
+        verify(driverService, times(1)).getDriverCurrentLocations(driverIds);
+    }
+
+    @Test
+    void getDriverCurrentLocations_withTooManyIds_shouldReturnBadRequest() {
+        // Arrange
+        List<Long> driverIds = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+        // Act
+        ResponseEntity<Map<Long, LocationDTO>> response = driverController.getDriverCurrentLocations(driverIds);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(driverService, never()).getDriverCurrentLocations(any());
     }
 
     @Test
@@ -244,10 +446,10 @@ class DriverControllerTest {
         double lng = -122.4194;
         double radius = 5000.0;
         List<DriverDTO> nearbyDrivers = List.of(testDriver);
-        when(driverService.getAvailableDriversNearby(lat, lng, radius)).thenReturn(nearbyDrivers);
+        when(driverService.getAvailableDriversNearby(lat, lng, radius, false)).thenReturn(nearbyDrivers);
 
         // Act
-        ResponseEntity<List<DriverDTO>> response = driverController.getNearbyDrivers(lat, lng, radius);
+        ResponseEntity<List<DriverDTO>> response = driverController.getNearbyDrivers(lat, lng, radius, false);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -256,6 +458,138 @@ class DriverControllerTest {
         assertNotNull(responseBody);
         assertEquals(1, responseBody.size());
         assertEquals(testDriver, responseBody.get(0));
-        verify(driverService, times(1)).getAvailableDriversNearby(lat, lng, radius);
+        verify(driverService, times(1)).getAvailableDriversNearby(lat, lng, radius, false);
+    }
+
+    @Test
+    void getNearbyDrivers_withInvalidRadius_shouldReturnBadRequest() {
+        for (double radius : new double[] {0, -1, 1e13, Double.POSITIVE_INFINITY, Double.NaN}) {
+            // Act
+            ResponseEntity<List<DriverDTO>> response = driverController.getNearbyDrivers(37.7749, -122.4194,
+                    radius, false);
+
+            // Assert
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+        verify(driverService, never()).getAvailableDriversNearby(anyDouble(), anyDouble(), anyDouble(), anyBoolean());
+    }
+
+    @Test
+    void getNearestDrivers_shouldReturnDriversWithDistance() {
+        // Arrange
+        List<NearestDriverDTO> nearest = List.of(NearestDriverDTO.builder()
+                .driver(testDriver)
+                .distanceMeters(120.5)
+                .build());
+        when(driverService.getNearestAvailableDrivers(37.7749, -122.4194, 5, 50000.0)).thenReturn(nearest);
+
+        // Act
+        ResponseEntity<List<NearestDriverDTO>> response = driverController.getNearestDrivers(37.7749, -122.4194, 5,
+                50000.0);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(nearest, response.getBody());
+    }
+
+    @Test
+    void getNearestDrivers_withInvalidK_shouldReturnBadRequest() {
+        // Act
+        ResponseEntity<List<NearestDriverDTO>> response = driverController.getNearestDrivers(37.7749, -122.4194, 0,
+                50000.0);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(driverService, never()).getNearestAvailableDrivers(anyDouble(), anyDouble(), anyInt(), anyDouble());
+    }
+
+    @Test
+    void getDriverEta_shouldReturnEstimate() {
+        // Arrange
+        EtaDTO eta = EtaDTO.builder().etaSeconds(300).distanceMeters(2500).speedKmh(30).build();
+        when(driverService.getDriverEta(1L, 37.78, -122.41)).thenReturn(eta);
+
+        // Act
+        ResponseEntity<EtaDTO> response = driverController.getDriverEta(1L, 37.78, -122.41);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(eta, response.getBody());
+    }
+
+    @Test
+    void getDriverEta_withUnknownLocation_shouldReturnNotFound() {
+        // Arrange
+        when(driverService.getDriverEta(1L, 37.78, -122.41)).thenReturn(null);
+
+        // Act
+        ResponseEntity<EtaDTO> response = driverController.getDriverEta(1L, 37.78, -122.41);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void registerGeofence_shouldReturnCreatedFence() {
+        // Arrange
+        GeofenceDTO request = GeofenceDTO.builder()
+                .orderId(100L)
+                .type(GeofenceType.CUSTOMER)
+                .driverId(1L)
+                .latitude(37.78)
+                .longitude(-122.41)
+                .build();
+        when(geofenceService.register(100L, GeofenceType.CUSTOMER, 1L, 37.78, -122.41, null))
+                .thenReturn(new Geofence(100L, GeofenceType.CUSTOMER, 1L, 37.78, -122.41, 75));
+
+        // Act
+        ResponseEntity<GeofenceDTO> response = driverController.registerGeofence(request);
+
+        // Assert
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(75.0, response.getBody().getRadiusMeters());
+    }
+
+    @Test
+    void removeGeofences_withUnknownOrder_shouldReturnNotFound() {
+        // Arrange
+        when(geofenceService.removeOrder(100L)).thenReturn(0);
+
+        // Act
+        ResponseEntity<Void> response = driverController.removeGeofences(100L);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void getSupplyDensity_shouldParseBoundingBox() {
+        // Arrange
+        SupplyDensityDTO density = SupplyDensityDTO.builder()
+                .cellSizeDegrees(0.01)
+                .latitudes(new double[] {37.775})
+                .longitudes(new double[] {-122.415})
+                .counts(new int[] {3})
+                .totalAvailable(3)
+                .build();
+        when(driverService.getAvailableDriverDensity(37.7, -122.5, 37.8, -122.3, null)).thenReturn(density);
+
+        // Act
+        ResponseEntity<SupplyDensityDTO> response = driverController.getSupplyDensity("-122.5,37.7,-122.3,37.8", null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(density, response.getBody());
+    }
+
+    @Test
+    void getSupplyDensity_withMalformedBoundingBox_shouldReturnBadRequest() {
+        // Act
+        ResponseEntity<SupplyDensityDTO> response = driverController.getSupplyDensity("-122.5,37.7,north", null);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(driverService);
     }
 }
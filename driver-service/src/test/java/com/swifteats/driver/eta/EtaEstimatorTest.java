@@ -0,0 +1,80 @@
+package com.swifteats.driver.eta;
+
+import com.swifteats.driver.spatial.GeoUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtaEstimatorTest {
+
+    private static final double FROM_LAT = 37.7749;
+    private static final double FROM_LNG = -122.4194;
+    private static final double TO_LAT = 37.7849;
+    private static final double TO_LNG = -122.4094;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private EtaEstimator estimator;
+
+    @BeforeEach
+    void setUp() {
+        // Area averages follow the latest sample so the expectations stay simple
+        estimator = new EtaEstimator(meterRegistry, 0.05, 36, 1.0, 1.0, 1.0, 60, 1000, clock::get);
+    }
+
+    @Test
+    void estimate_withoutObservations_shouldUseDefaultSpeed() {
+        // Act
+        EtaEstimator.Estimate estimate = estimator.estimate(FROM_LAT, FROM_LNG, TO_LAT, TO_LNG);
+
+        // Assert: 36 km/h is 10 m/s
+        double distance = GeoUtils.distanceMeters(FROM_LAT, FROM_LNG, TO_LAT, TO_LNG);
+        assertEquals(distance, estimate.distanceMeters(), 0.001);
+        assertEquals(distance / 10, estimate.seconds(), 0.001);
+    }
+
+    @Test
+    void estimate_shouldUseObservedAreaSpeedAndIgnoreStationarySamples() {
+        // Arrange
+        estimator.record(1L, FROM_LAT, FROM_LNG, 18.0);
+        estimator.record(2L, FROM_LAT, FROM_LNG, 0.0);
+
+        // Act
+        EtaEstimator.Estimate estimate = estimator.estimate(FROM_LAT, FROM_LNG, TO_LAT, TO_LNG);
+
+        // Assert: both points fall in the same area cell, observed at 5 m/s
+        assertEquals(5.0, estimate.speedMetersPerSecond(), 0.001);
+    }
+
+    @Test
+    void estimate_shouldCacheRouteSpeedPerCellPairUntilTtl() {
+        // Arrange
+        estimator.estimate(FROM_LAT, FROM_LNG, TO_LAT, TO_LNG);
+        estimator.record(1L, FROM_LAT, FROM_LNG, 18.0);
+
+        // Act & Assert: the cached route speed is still the default
+        assertEquals(10.0, estimator.estimate(FROM_LAT, FROM_LNG, TO_LAT, TO_LNG).speedMetersPerSecond(), 0.001);
+        assertEquals(1.0, meterRegistry.get("driver.eta.route_cache").tag("result", "hit").counter().count());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertEquals(5.0, estimator.estimate(FROM_LAT, FROM_LNG, TO_LAT, TO_LNG).speedMetersPerSecond(), 0.001);
+    }
+
+    @Test
+    void estimate_forDriver_shouldBlendDriverSpeed() {
+        // Arrange: the area average is set by another driver
+        estimator.record(2L, FROM_LAT, FROM_LNG, 18.0);
+        estimator.record(1L, 40.0, -100.0, 54.0);
+
+        // Act
+        EtaEstimator.Estimate estimate = estimator.estimate(1L, FROM_LAT, FROM_LNG, TO_LAT, TO_LNG);
+
+        // Assert: (5 m/s + 15 m/s) / 2
+        assertEquals(10.0, estimate.speedMetersPerSecond(), 0.001);
+    }
+}
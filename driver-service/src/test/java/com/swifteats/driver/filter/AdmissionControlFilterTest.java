@@ -0,0 +1,105 @@
+package com.swifteats.driver.filter;
+
+import com.swifteats.driver.service.LocationWriteBehindService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdmissionControlFilterTest {
+
+    @Mock
+    private LocationWriteBehindService writeBehindService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // Budget of 4: interactive 3, ingestion 2, bulk 1
+        filter = new AdmissionControlFilter(writeBehindService, meterRegistry, true, 4, 75, 50, 25, 1000, 2);
+    }
+
+    @Test
+    void doFilter_shouldShedLowerPrioritiesFirstWhenBudgetIsTaken() throws Exception {
+        // Arrange: two location updates in flight
+        List<Integer> statuses = new ArrayList<>();
+        FilterChain inner = (request, response) -> { };
+        FilterChain holding = (request, response) -> {
+            statuses.add(run(post("/api/v1/drivers/location/batch"), inner).getStatus());
+            statuses.add(run(get("/api/v1/drivers/1/location/history"), inner).getStatus());
+            statuses.add(run(get("/api/v1/drivers/nearby"), inner).getStatus());
+            statuses.add(run(post("/api/v1/drivers/status"), inner).getStatus());
+        };
+        FilterChain outer = (request, response) -> run(post("/api/v1/drivers/location"), holding);
+
+        // Act
+        run(post("/api/v1/drivers/location"), outer);
+
+        // Assert: ingestion and history are shed, nearby and status still get through
+        assertEquals(List.of(429, 429, 200, 200), statuses);
+        assertEquals(1.0, meterRegistry.get("driver.admission.rejected").tag("priority", "ingestion").counter().count());
+        assertEquals(1.0, meterRegistry.get("driver.admission.rejected").tag("priority", "bulk").counter().count());
+        assertEquals(0.0, meterRegistry.get("driver.admission.in_flight").gauge().value());
+    }
+
+    @Test
+    void doFilter_shouldRejectWithRetryAfterWhenWriteBehindQueueIsBacklogged() throws Exception {
+        // Arrange
+        when(writeBehindService.getQueueDepth()).thenReturn(1000);
+        FilterChain chain = mock(FilterChain.class);
+
+        // Act
+        MockHttpServletResponse response = run(post("/api/v1/drivers/location"), chain);
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    void doFilter_shouldReleasePermitWhenHandlerThrows() throws Exception {
+        // Arrange
+        FilterChain failing = (request, response) -> {
+            throw new IllegalStateException("boom");
+        };
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalStateException.class, () -> run(get("/api/v1/drivers/1/location/history"), failing));
+        }
+
+        // Assert: the single bulk permit is free again
+        assertEquals(200, run(get("/api/v1/drivers/1/location/history"), (request, response) -> { }).getStatus());
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request, FilterChain chain)
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest post(String uri) {
+        return new MockHttpServletRequest("POST", uri);
+    }
+
+    private static MockHttpServletRequest get(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+}
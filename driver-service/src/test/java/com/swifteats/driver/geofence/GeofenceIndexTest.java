@@ -0,0 +1,85 @@
+package com.swifteats.driver.geofence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeofenceIndexTest {
+
+    private static final double RESTAURANT_LAT = 37.7749;
+    private static final double RESTAURANT_LNG = -122.4194;
+
+    private GeofenceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new GeofenceIndex(0.005, 25);
+        index.register(new Geofence(100L, GeofenceType.RESTAURANT, 1L, RESTAURANT_LAT, RESTAURANT_LNG, 50));
+    }
+
+    @Test
+    void evaluate_shouldEmitEnterOnceAndExitBeyondHysteresis() {
+        // Arrange: approach from ~500m north
+        assertTrue(index.evaluate(1L, RESTAURANT_LAT + 0.0045, RESTAURANT_LNG).isEmpty());
+
+        // Act & Assert: ~30m away is inside
+        List<GeofenceEvent> arrived = index.evaluate(1L, RESTAURANT_LAT + 0.00027, RESTAURANT_LNG);
+        assertEquals(List.of("ARRIVED_AT_RESTAURANT"), arrived.stream().map(GeofenceEvent::event).toList());
+        assertEquals(100L, arrived.get(0).orderId());
+
+        // Staying inside or jittering just outside the radius emits nothing (~60m < 50m + 25m)
+        assertTrue(index.evaluate(1L, RESTAURANT_LAT, RESTAURANT_LNG).isEmpty());
+        assertTrue(index.evaluate(1L, RESTAURANT_LAT + 0.00054, RESTAURANT_LNG).isEmpty());
+
+        // ~110m away has left
+        List<GeofenceEvent> departed = index.evaluate(1L, RESTAURANT_LAT + 0.001, RESTAURANT_LNG);
+        assertEquals(List.of("DEPARTED_RESTAURANT"), departed.stream().map(GeofenceEvent::event).toList());
+    }
+
+    @Test
+    void evaluate_shouldIgnoreOtherDriversForDriverSpecificFence() {
+        // Act & Assert
+        assertTrue(index.evaluate(2L, RESTAURANT_LAT, RESTAURANT_LNG).isEmpty());
+    }
+
+    @Test
+    void evaluate_shouldFindFenceOverlappingNeighbourCell() {
+        // Arrange: fence centred right at a cell border (0.005 degree cells)
+        index.register(new Geofence(200L, GeofenceType.CUSTOMER, null, 37.775, -122.42, 100));
+
+        // Act: driver just south of the border, in the neighbouring cell
+        List<GeofenceEvent> events = index.evaluate(3L, 37.7745, -122.42);
+
+        // Assert
+        assertEquals(List.of("NEAR_CUSTOMER"), events.stream().map(GeofenceEvent::event).toList());
+    }
+
+    @Test
+    void removeOrder_shouldDropFenceWithoutExitEvent() {
+        // Arrange
+        index.evaluate(1L, RESTAURANT_LAT, RESTAURANT_LNG);
+
+        // Act
+        assertEquals(1, index.removeOrder(100L));
+
+        // Assert
+        assertEquals(0, index.size());
+        assertTrue(index.evaluate(1L, RESTAURANT_LAT + 0.01, RESTAURANT_LNG).isEmpty());
+        assertTrue(index.evaluate(1L, RESTAURANT_LAT, RESTAURANT_LNG).isEmpty());
+    }
+
+    @Test
+    void remove_shouldOnlyDropFenceOfThatType() {
+        // Arrange
+        index.register(new Geofence(100L, GeofenceType.CUSTOMER, 1L, RESTAURANT_LAT + 0.01, RESTAURANT_LNG, 50));
+
+        // Act & Assert
+        assertTrue(index.remove(100L, GeofenceType.RESTAURANT));
+        assertFalse(index.remove(100L, GeofenceType.RESTAURANT));
+        assertEquals(List.of(GeofenceType.CUSTOMER),
+                index.getFences(100L).stream().map(Geofence::type).toList());
+    }
+}
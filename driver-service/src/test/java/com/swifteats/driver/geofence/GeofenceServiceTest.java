@@ -0,0 +1,128 @@
+package com.swifteats.driver.geofence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GeofenceServiceTest {
+
+    private static final double RESTAURANT_LAT = 37.7749;
+    private static final double RESTAURANT_LNG = -122.4194;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private StringRedisTemplate stringRedisTemplate;
+    private HashOperations<String, Object, Object> hashOperations;
+    private GeofenceService registering;
+    private GeofenceService replica;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        when(stringRedisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        registering = service();
+        replica = service();
+    }
+
+    @Test
+    void register_shouldReplicateFenceToOtherInstances() {
+        // Act
+        registering.register(100L, GeofenceType.RESTAURANT, 1L, RESTAURANT_LAT, RESTAURANT_LNG, 50.0);
+        deliverPublishedChanges();
+
+        // Assert
+        verify(hashOperations).put(eq(GeofenceService.SHARED_FENCES_KEY), eq("100:RESTAURANT"), anyString());
+        assertEquals(registering.getFences(100L), replica.getFences(100L));
+
+        // Act: removal is replicated as well
+        registering.removeOrder(100L);
+        deliverPublishedChanges();
+
+        // Assert
+        assertTrue(replica.getFences(100L).isEmpty());
+    }
+
+    @Test
+    void loadSharedFences_shouldSkipAndDeleteExpiredFences() {
+        // Arrange
+        when(hashOperations.entries(GeofenceService.SHARED_FENCES_KEY)).thenReturn(Map.of(
+                "100:RESTAURANT", "1," + RESTAURANT_LAT + "," + RESTAURANT_LNG + ",50.0,0",
+                "101:RESTAURANT", "2," + RESTAURANT_LAT + "," + RESTAURANT_LNG + ",50.0,999999"));
+
+        // Act
+        replica.loadSharedFences();
+
+        // Assert
+        assertEquals(1, replica.getFences(100L).size());
+        assertTrue(replica.getFences(101L).isEmpty());
+        verify(hashOperations).delete(GeofenceService.SHARED_FENCES_KEY, "101:RESTAURANT");
+    }
+
+    @Test
+    void onLocation_shouldRemoveTransientFenceOnExit() {
+        // Arrange
+        registering.register(100L, GeofenceType.RESTAURANT, 1L, RESTAURANT_LAT, RESTAURANT_LNG, 50.0,
+                Duration.ofMinutes(120));
+
+        // Act: arrive, then depart ~110m away
+        registering.onLocation(1L, RESTAURANT_LAT, RESTAURANT_LNG);
+        assertEquals(1, registering.getFences(100L).size());
+        registering.onLocation(1L, RESTAURANT_LAT + 0.001, RESTAURANT_LNG);
+
+        // Assert
+        assertTrue(registering.getFences(100L).isEmpty());
+        verify(hashOperations).delete(GeofenceService.SHARED_FENCES_KEY, "100:RESTAURANT");
+    }
+
+    @Test
+    void removeExpired_shouldOnlyRemoveTransientFencesPastTheirTtl() {
+        // Arrange
+        registering.register(100L, GeofenceType.RESTAURANT, 1L, RESTAURANT_LAT, RESTAURANT_LNG, 50.0,
+                Duration.ofMinutes(1));
+        registering.register(100L, GeofenceType.CUSTOMER, 1L, RESTAURANT_LAT, RESTAURANT_LNG, 50.0);
+
+        // Act
+        clock.addAndGet(Duration.ofMinutes(1).toMillis());
+        registering.removeExpired();
+
+        // Assert
+        assertEquals(List.of(GeofenceType.CUSTOMER),
+                registering.getFences(100L).stream().map(Geofence::type).toList());
+    }
+
+    private GeofenceService service() {
+        return new GeofenceService(mock(RabbitTemplate.class), stringRedisTemplate, new SimpleMeterRegistry(),
+                0.005, 25, 75, clock::get);
+    }
+
+    private void deliverPublishedChanges() {
+        ArgumentCaptor<String> payloads = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate, atLeastOnce()).convertAndSend(eq(GeofenceService.CHANGES_CHANNEL),
+                payloads.capture());
+        for (String payload : payloads.getAllValues()) {
+            DefaultMessage message = new DefaultMessage(
+                    GeofenceService.CHANGES_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    payload.getBytes(StandardCharsets.UTF_8));
+            // Both instances see every change; the sender ignores its own
+            registering.onMessage(message, null);
+            replica.onMessage(message, null);
+        }
+        clearInvocations(stringRedisTemplate);
+    }
+}
@@ -0,0 +1,149 @@
+package com.swifteats.driver.matching;
+
+import com.swifteats.driver.config.RabbitMQConfig;
+import com.swifteats.driver.eta.EtaEstimator;
+import com.swifteats.driver.geofence.GeofenceService;
+import com.swifteats.driver.geofence.GeofenceType;
+import com.swifteats.driver.service.DriverService;
+import com.swifteats.driver.spatial.NearbyDriver;
+import com.swifteats.driver.spatial.NearbyDriverSearch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DriverMatchingServiceTest {
+
+    @Mock
+    private DriverService driverService;
+
+    @Mock
+    private NearbyDriverSearch nearbySearch;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private GeofenceService geofenceService;
+
+    private static final double LATITUDE = 37.77;
+
+    private DriverMatchingService matchingService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EtaEstimator etaEstimator = new EtaEstimator(meterRegistry, 0.05, 25, 1.3, 0.3, 0.05, 60, 1000);
+        matchingService = new DriverMatchingService(driverService, nearbySearch, rabbitTemplate, etaEstimator,
+                geofenceService, meterRegistry, 8, 10000, 3, 1000, 120);
+    }
+
+    @Test
+    void matchPendingOrders_shouldMinimizeTotalPickupTime() {
+        // Arrange: driver 10 is nearest to order 1, but driver 20 is much further from order 2
+        NearbyDriver driver10 = hit(10L, LATITUDE, -122.408);
+        NearbyDriver driver20 = hit(20L, LATITUDE, -122.413);
+        when(nearbySearch.findNearestAvailable(eq(LATITUDE), eq(-122.41), anyInt(), anyDouble()))
+                .thenReturn(List.of(driver10, driver20));
+        when(nearbySearch.findNearestAvailable(eq(LATITUDE), eq(-122.40), anyInt(), anyDouble()))
+                .thenReturn(List.of(driver10, driver20));
+        when(driverService.claimAvailableDriver(anyLong())).thenReturn(true);
+
+        matchingService.submit(1L, LATITUDE, -122.41);
+        matchingService.submit(2L, LATITUDE, -122.40);
+
+        // Act
+        matchingService.matchPendingOrders();
+
+        // Assert: ~264m + ~704m instead of greedy ~176m + ~1144m
+        Map<Long, Long> driverByOrder = publishedAssignments(2);
+        assertEquals(Map.of(1L, 20L, 2L, 10L), driverByOrder);
+        verify(geofenceService).register(1L, GeofenceType.RESTAURANT, 20L, LATITUDE, -122.41, null,
+                Duration.ofMinutes(120));
+        assertEquals(0, matchingService.getPendingCount());
+    }
+
+    @Test
+    void matchPendingOrders_whenClaimFails_shouldRequeueOrder() {
+        // Arrange
+        when(nearbySearch.findNearestAvailable(anyDouble(), anyDouble(), anyInt(), anyDouble()))
+                .thenReturn(List.of(hit(10L, LATITUDE, -122.41)));
+        when(driverService.claimAvailableDriver(10L)).thenReturn(false);
+        matchingService.submit(1L, LATITUDE, -122.41);
+
+        // Act
+        matchingService.matchPendingOrders();
+
+        // Assert
+        verifyNoInteractions(rabbitTemplate);
+        assertEquals(1, matchingService.getPendingCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void matchPendingOrders_afterMaxAttempts_shouldPublishNoDriverStatus() {
+        // Arrange
+        when(nearbySearch.findNearestAvailable(anyDouble(), anyDouble(), anyInt(), anyDouble()))
+                .thenReturn(List.of());
+        matchingService.submit(1L, LATITUDE, -122.41);
+
+        // Act
+        for (int round = 0; round < 3; round++) {
+            matchingService.matchPendingOrders();
+        }
+
+        // Assert
+        assertEquals(0, matchingService.getPendingCount());
+        verify(driverService, never()).claimAvailableDriver(anyLong());
+        ArgumentCaptor<Object> message = ArgumentCaptor.forClass(Object.class);
+        verify(rabbitTemplate).convertAndSend(eq(RabbitMQConfig.ORDER_EXCHANGE),
+                eq(RabbitMQConfig.ORDER_STATUS_UPDATE_KEY), message.capture());
+        Map<String, Object> status = (Map<String, Object>) message.getValue();
+        assertEquals(1L, status.get("orderId"));
+        assertEquals("NO_DRIVER", status.get("status"));
+    }
+
+    @Test
+    void handBackPendingOrders_shouldRepublishUnmatchedOrders() {
+        // Arrange
+        matchingService.submit(1L, LATITUDE, -122.41);
+
+        // Act
+        matchingService.handBackPendingOrders();
+
+        // Assert
+        verify(rabbitTemplate).convertAndSend(RabbitMQConfig.DRIVER_EXCHANGE, RabbitMQConfig.DRIVER_ASSIGNMENT_KEY,
+                Map.of("orderId", 1L, "pickupLatitude", LATITUDE, "pickupLongitude", -122.41));
+        assertEquals(0, matchingService.getPendingCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Long> publishedAssignments(int expected) {
+        ArgumentCaptor<Object> messages = ArgumentCaptor.forClass(Object.class);
+        verify(rabbitTemplate, times(expected)).convertAndSend(eq(RabbitMQConfig.ORDER_EXCHANGE),
+                eq(RabbitMQConfig.ORDER_STATUS_UPDATE_KEY), messages.capture());
+        return messages.getAllValues().stream()
+                .map(message -> (Map<String, Object>) message)
+                .collect(Collectors.toMap(
+                        message -> (Long) message.get("orderId"),
+                        message -> (Long) message.get("driverId")));
+    }
+
+    private static NearbyDriver hit(long driverId, double latitude, double longitude) {
+        return new NearbyDriver(driverId, latitude, longitude, 0L, 0);
+    }
+}
@@ -0,0 +1,87 @@
+package com.swifteats.driver.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HungarianAssignmentTest {
+
+    @Test
+    void solve_shouldBeatGreedyAssignment() {
+        // Arrange: greedy gives row 0 column 0 (1) and leaves row 1 with column 1 (100)
+        double[][] cost = {
+                { 1, 2 },
+                { 3, 100 }
+        };
+
+        // Act
+        int[] assignment = HungarianAssignment.solve(cost);
+
+        // Assert
+        assertArrayEquals(new int[] { 1, 0 }, assignment);
+    }
+
+    @Test
+    void solve_shouldMatchBruteForceOnRandomRectangularMatrices() {
+        // Arrange
+        Random random = new Random(7);
+
+        for (int round = 0; round < 200; round++) {
+            int rows = 1 + random.nextInt(5);
+            int columns = 1 + random.nextInt(5);
+            double[][] cost = new double[rows][columns];
+            for (double[] row : cost) {
+                for (int j = 0; j < columns; j++) {
+                    row[j] = random.nextInt(4) == 0 ? HungarianAssignment.FORBIDDEN : random.nextInt(1000);
+                }
+            }
+
+            // Act
+            int[] assignment = HungarianAssignment.solve(cost);
+
+            // Assert
+            assertEquals(bestCost(cost, 0, new boolean[columns]), totalCost(cost, assignment), 1e-6);
+        }
+    }
+
+    @Test
+    void solve_shouldLeaveRowsWithOnlyForbiddenCellsUnassigned() {
+        // Arrange
+        double[][] cost = {
+                { 5, HungarianAssignment.FORBIDDEN },
+                { HungarianAssignment.FORBIDDEN, HungarianAssignment.FORBIDDEN }
+        };
+
+        // Act
+        int[] assignment = HungarianAssignment.solve(cost);
+
+        // Assert
+        assertArrayEquals(new int[] { 0, -1 }, assignment);
+    }
+
+    // Forbidden or missing pairs count as unmatched; each matched pair saves FORBIDDEN
+    private static double totalCost(double[][] cost, int[] assignment) {
+        double total = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            total += assignment[i] >= 0 ? cost[i][assignment[i]] : HungarianAssignment.FORBIDDEN;
+        }
+        return total;
+    }
+
+    private static double bestCost(double[][] cost, int row, boolean[] used) {
+        if (row == cost.length) {
+            return 0;
+        }
+        double best = HungarianAssignment.FORBIDDEN + bestCost(cost, row + 1, used);
+        for (int j = 0; j < used.length; j++) {
+            if (!used[j] && cost[row][j] < HungarianAssignment.FORBIDDEN) {
+                used[j] = true;
+                best = Math.min(best, cost[row][j] + bestCost(cost, row + 1, used));
+                used[j] = false;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,93 @@
+package com.swifteats.driver.prediction;
+
+import com.swifteats.driver.spatial.GeoUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MotionPredictorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private MotionPredictor predictor;
+
+    @BeforeEach
+    void setUp() {
+        predictor = new MotionPredictor(meterRegistry, true, 15, 20, 5, 15, 10, clock::get);
+    }
+
+    @Test
+    void predict_shouldExtrapolateAlongHeadingAtSpeed() {
+        // Arrange: heading east at 36 km/h
+        predictor.record(1L, 37.7749, -122.4194, 90.0, 36.0);
+        clock.addAndGet(10_000);
+
+        // Act
+        PredictedPosition position = predictor.predict(1L);
+
+        // Assert
+        assertNotNull(position);
+        assertEquals(10_000, position.elapsedMillis());
+        assertEquals(37.7749, position.latitude(), 1e-9);
+        assertTrue(position.longitude() > -122.4194);
+        assertEquals(100.0, GeoUtils.distanceMeters(37.7749, -122.4194, position.latitude(), position.longitude()),
+                1.0);
+    }
+
+    @Test
+    void predict_shouldStopExtrapolatingAtTheHorizon() {
+        // Arrange
+        predictor.record(1L, 37.7749, -122.4194, 0.0, 36.0);
+        clock.addAndGet(60_000);
+
+        // Act
+        PredictedPosition position = predictor.predict(1L);
+
+        // Assert: 15s at 10 m/s, not 60s
+        assertEquals(150.0, GeoUtils.distanceMeters(37.7749, -122.4194, position.latitude(), position.longitude()),
+                1.0);
+    }
+
+    @Test
+    void predict_shouldReturnNullForUnknownOrSlowDrivers() {
+        // Arrange
+        predictor.record(1L, 37.7749, -122.4194, 90.0, 2.0);
+        predictor.record(2L, 37.7749, -122.4194, null, 36.0);
+
+        // Act & Assert
+        assertNull(predictor.predict(1L));
+        assertNull(predictor.predict(2L));
+        assertNull(predictor.predict(3L));
+        assertEquals(3.0, meterRegistry.get("driver.prediction.requests")
+                .tag("result", "unavailable").counter().count());
+    }
+
+    @Test
+    void shouldBroadcast_shouldSkipFixesClientsAlreadyExtrapolate() {
+        // Arrange: heading north at 36 km/h
+        assertTrue(predictor.shouldBroadcast(1L, 37.7749, -122.4194, 0.0, 36.0));
+        clock.addAndGet(5_000);
+
+        // Act & Assert: 50m further north is where clients show the driver
+        assertFalse(predictor.shouldBroadcast(1L, 37.77535, -122.4194, 0.0, 36.0));
+        // A driver that stopped deviates from it
+        assertTrue(predictor.shouldBroadcast(1L, 37.7749, -122.4194, 0.0, 0.0));
+        assertEquals(1.0, meterRegistry.get("driver.prediction.broadcasts.skipped").counter().count());
+    }
+
+    @Test
+    void shouldBroadcast_shouldSendTurnsAndKeepAlives() {
+        // Arrange
+        predictor.shouldBroadcast(1L, 37.7749, -122.4194, 0.0, 36.0);
+
+        // Act & Assert: turning on the spot
+        assertTrue(predictor.shouldBroadcast(1L, 37.7749, -122.4194, 90.0, 36.0));
+        // On the predicted path, but the last broadcast is 10s old
+        clock.addAndGet(10_000);
+        assertTrue(predictor.shouldBroadcast(1L, 37.7749, -122.4181, 90.0, 36.0));
+    }
+}
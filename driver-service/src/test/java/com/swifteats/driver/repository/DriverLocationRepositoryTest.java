@@ -0,0 +1,87 @@
+package com.swifteats.driver.repository;
+
+import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.model.Driver;
+import com.swifteats.driver.model.DriverLocation;
+import com.swifteats.driver.model.DriverStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+class DriverLocationRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DriverLocationRepository locationRepository;
+
+    private Driver driver;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        start = LocalDateTime.now().minusMinutes(1);
+        driver = entityManager.persist(Driver.builder()
+                .name("John Doe")
+                .email("john.doe@example.com")
+                .phone("555-1234")
+                .vehicleType("CAR")
+                .vehiclePlate("ABC123")
+                .status(DriverStatus.AVAILABLE)
+                .build());
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(DriverLocation.builder()
+                    .driver(driver)
+                    .latitude(37.7749 + i * 0.001)
+                    .longitude(-122.4194)
+                    .heading(90.0)
+                    .speed(30.0)
+                    .build());
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void streamDriverLocationHistory_shouldProjectIntoLocationDTO() {
+        // Act
+        List<LocationDTO> history;
+        try (Stream<LocationDTO> stream = locationRepository.streamDriverLocationHistory(driver.getId(), start)) {
+            history = stream.toList();
+        }
+
+        // Assert
+        assertEquals(3, history.size());
+        assertEquals(driver.getId(), history.get(0).getDriverId());
+        assertEquals(30.0, history.get(0).getSpeed());
+        assertNull(history.get(0).getPredicted());
+    }
+
+    @Test
+    void findDriverLocationHistoryPage_shouldReturnRowsAfterKeysetPosition() {
+        // Act
+        List<LocationDTO> firstPage = locationRepository.findDriverLocationHistoryPage(
+                driver.getId(), start, 0L, LocalDateTime.now().plusMinutes(1), Limit.of(2));
+        LocationDTO last = firstPage.get(firstPage.size() - 1);
+        List<LocationDTO> secondPage = locationRepository.findDriverLocationHistoryPage(
+                driver.getId(), last.getTimestamp(), last.getId(), LocalDateTime.now().plusMinutes(1), Limit.of(2));
+
+        // Assert
+        assertEquals(2, firstPage.size());
+        assertEquals(1, secondPage.size());
+        assertNotEquals(last.getId(), secondPage.get(0).getId());
+    }
+}
@@ -0,0 +1,114 @@
+package com.swifteats.driver.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.swifteats.driver.model.Driver;
+import com.swifteats.driver.model.DriverStatus;
+import com.swifteats.driver.repository.DriverImportRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DriverImportServiceTest {
+
+    @Mock
+    private DriverImportRepository importRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private DriverImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new DriverImportService(importRepository, objectMapper, validator,
+                new SimpleMeterRegistry(), 2);
+    }
+
+    @Test
+    void importDrivers_shouldInsertValidNdjsonRowsInBatchesAndReportEveryRow() throws Exception {
+        // Arrange
+        String input = """
+                {"name":"Ann","email":"ann@example.com","phone":"1","vehicleType":"BIKE","vehiclePlate":"A1"}
+                {"name":"Bob","email":"not-an-email","phone":"2","vehicleType":"CAR","vehiclePlate":"B2"}
+                {"name":"Cid","email":"cid@example.com","phone":"3","vehicleType":"CAR","vehiclePlate":"C3"}
+                {"name":
+                {"name":"Dee","email":"dee@example.com","phone":"4","vehicleType":"CAR","vehiclePlate":"D4"}
+                """;
+        when(importRepository.allocateIds(anyInt())).thenReturn(List.of(10L), List.of(11L), List.of(12L));
+        when(importRepository.insertAll(anyList())).thenReturn(Set.of(10L), Set.of(), Set.of(12L));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        long created = importService.importDrivers(stream(input), DriverImportService.Format.NDJSON, output);
+
+        // Assert
+        assertEquals(2, created);
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(5, lines.size());
+        assertEquals("{\"line\":1,\"driverId\":10,\"status\":\"CREATED\"}", lines.get(0));
+        assertEquals("{\"line\":2,\"status\":\"REJECTED\",\"error\":\"Email should be valid\"}", lines.get(1));
+        assertEquals("{\"line\":3,\"status\":\"DUPLICATE\"}", lines.get(2));
+        assertTrue(lines.get(3).startsWith("{\"line\":4,\"status\":\"REJECTED\",\"error\":\"Malformed JSON"));
+        assertEquals("{\"line\":5,\"driverId\":12,\"status\":\"CREATED\"}", lines.get(4));
+        verify(importRepository, times(3)).insertAll(anyList());
+    }
+
+    @Test
+    void importDrivers_shouldMapCsvColumnsByHeader() throws Exception {
+        // Arrange
+        String input = """
+                email,name,vehicle_plate,vehicle_type,phone,status
+                "ann@example.com","Ann, Jr.",A1,BIKE,555,available
+                bob@example.com,Bob,B2,CAR,556,PARKED
+                """;
+        List<Driver> inserted = new ArrayList<>();
+        when(importRepository.allocateIds(1)).thenReturn(List.of(10L));
+        when(importRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            inserted.addAll(invocation.getArgument(0));
+            return Set.of(10L);
+        });
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        long created = importService.importDrivers(stream(input), DriverImportService.Format.CSV, output);
+
+        // Assert
+        assertEquals(1, created);
+        assertEquals(1, inserted.size());
+        Driver driver = inserted.get(0);
+        assertEquals("Ann, Jr.", driver.getName());
+        assertEquals("BIKE", driver.getVehicleType());
+        assertEquals(DriverStatus.AVAILABLE, driver.getStatus());
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains(
+                "{\"line\":3,\"status\":\"REJECTED\",\"error\":\"Unknown status: PARKED\"}"));
+    }
+
+    @Test
+    void parseCsvLine_shouldHandleQuotedFields() {
+        // Act & Assert
+        assertEquals(List.of("a", "b,c", "say \"hi\"", ""),
+                DriverImportService.parseCsvLine("a,\"b,c\",\"say \"\"hi\"\"\","));
+    }
+
+    private static ByteArrayInputStream stream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,122 @@
+package com.swifteats.driver.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationIngestionExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LocationIngestionExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_shouldKeepUpdatesOfOneDriverInOrder() throws InterruptedException {
+        // Arrange
+        executor = new LocationIngestionExecutor(meterRegistry, 4, 10000, true, true);
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(500);
+
+        // Act
+        for (int i = 0; i < 500; i++) {
+            int sequence = i;
+            executor.submit(42L, () -> {
+                processed.add(sequence);
+                done.countDown();
+            });
+        }
+
+        // Assert
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(IntStream.range(0, 500).boxed().toList(), processed);
+    }
+
+    @Test
+    void submit_whenLaneIsFull_shouldReplaceNewestQueuedUpdateOfSameDriver() throws InterruptedException {
+        // Arrange
+        executor = new LocationIngestionExecutor(meterRegistry, 1, 2, true, false);
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<String> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        blockLane(blocker);
+
+        // Act
+        executor.submit(1L, () -> {
+            processed.add("first");
+            done.countDown();
+        });
+        executor.submit(1L, () -> processed.add("second"));
+        executor.submit(1L, () -> {
+            processed.add("third");
+            done.countDown();
+        });
+        blocker.countDown();
+
+        // Assert
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "third"), processed);
+        assertEquals(1.0, droppedCount("conflated"));
+        assertEquals(0.0, droppedCount("drop-newest"));
+    }
+
+    @Test
+    void submit_whenLaneIsFull_shouldNeverDropOtherDriversUpdates() throws InterruptedException {
+        // Arrange
+        executor = new LocationIngestionExecutor(meterRegistry, 1, 2, true, false);
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<String> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        blockLane(blocker);
+
+        // Act
+        executor.submit(1L, () -> {
+            processed.add("driver-1");
+            done.countDown();
+        });
+        executor.submit(2L, () -> {
+            processed.add("driver-2");
+            done.countDown();
+        });
+        executor.submit(3L, () -> processed.add("driver-3"));
+        blocker.countDown();
+
+        // Assert
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("driver-1", "driver-2"), processed);
+        assertEquals(0.0, droppedCount("conflated"));
+        assertEquals(1.0, droppedCount("drop-newest"));
+    }
+
+    private void blockLane(CountDownLatch blocker) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(0L, () -> {
+            started.countDown();
+            awaitQuietly(blocker);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private double droppedCount(String policy) {
+        return meterRegistry.get("driver.location.ingestion.dropped").tag("policy", policy).counter().count();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.swifteats.driver.service;
+
+import com.swifteats.driver.dto.LocationUpdateDTO;
+import com.swifteats.driver.service.LocationIngestionFilter.Decision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationIngestionFilterTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 8, 13, 10, 0, 0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private LocationIngestionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new LocationIngestionFilter(meterRegistry, true, 10, 15, 5, 10, 30, clock::get);
+    }
+
+    @Test
+    void apply_shouldDropSmallMovesAndAcceptRealMovement() {
+        // Arrange
+        assertEquals(Decision.ACCEPTED, ingest(update(37.7749, -122.4194, 90.0, null)));
+
+        // Act & Assert: ~2m move with a small heading change
+        assertEquals(Decision.STATIONARY, ingest(update(37.77492, -122.4194, 95.0, null)));
+        // ~50m move
+        assertEquals(Decision.ACCEPTED, ingest(update(37.77535, -122.4194, 95.0, null)));
+        // Turning on the spot
+        assertEquals(Decision.ACCEPTED, ingest(update(37.77535, -122.4194, 180.0, null)));
+        assertEquals(3.0, meterRegistry.get("driver.location.ingestion.filter")
+                .tag("decision", "accepted").counter().count());
+        assertEquals(1.0, meterRegistry.get("driver.location.ingestion.filter")
+                .tag("decision", "stationary").counter().count());
+    }
+
+    @Test
+    void apply_shouldDropUpdatesWithOlderDeviceTimestamp() {
+        // Arrange
+        ingest(update(37.7749, -122.4194, null, NOW));
+
+        // Act & Assert
+        assertEquals(Decision.OUT_OF_ORDER, ingest(update(37.7800, -122.4194, null, NOW.minusSeconds(1))));
+        assertEquals(Decision.OUT_OF_ORDER, ingest(update(37.7800, -122.4194, null, NOW)));
+        assertEquals(Decision.ACCEPTED, ingest(update(37.7800, -122.4194, null, NOW.plusSeconds(1))));
+    }
+
+    @Test
+    void apply_shouldPassKeepAliveForStationaryDriver() {
+        // Arrange
+        ingest(update(37.7749, -122.4194, null, null));
+
+        // Act & Assert: every 5th stationary update passes
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Decision.STATIONARY, ingest(update(37.7749, -122.4194, null, null)));
+        }
+        assertEquals(Decision.KEEP_ALIVE, ingest(update(37.7749, -122.4194, null, null)));
+
+        // ...and so does the first one after the keep-alive interval
+        assertEquals(Decision.STATIONARY, ingest(update(37.7749, -122.4194, null, null)));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(Decision.KEEP_ALIVE, ingest(update(37.7749, -122.4194, null, null)));
+    }
+
+    @Test
+    void apply_withoutCommit_shouldNotAdvanceReferencePoint() {
+        // Arrange
+        ingest(update(37.7749, -122.4194, null, NOW));
+
+        // Act: the next point is accepted but its ingestion fails before the commit
+        assertEquals(Decision.ACCEPTED, filter.apply(update(37.7800, -122.4194, null, NOW.plusSeconds(1))));
+
+        // Assert: its retry is not mistaken for a stationary or out-of-order update
+        assertEquals(Decision.ACCEPTED, ingest(update(37.7800, -122.4194, null, NOW.plusSeconds(1))));
+    }
+
+    @Test
+    void evictIdle_shouldForgetDriversThatStoppedSending() {
+        // Arrange
+        ingest(update(37.7749, -122.4194, null, NOW));
+
+        // Act
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(20));
+        filter.evictIdle();
+        assertEquals(Decision.OUT_OF_ORDER, ingest(update(37.7749, -122.4194, null, NOW)));
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(31));
+        filter.evictIdle();
+
+        // Assert: the driver starts over with a fresh reference point
+        assertEquals(Decision.ACCEPTED, ingest(update(37.7749, -122.4194, null, NOW)));
+    }
+
+    // Apply an update and commit it when accepted, as the ingestion path does
+    private Decision ingest(LocationUpdateDTO update) {
+        Decision decision = filter.apply(update);
+        if (decision.isAccepted()) {
+            filter.commit(update);
+        }
+        return decision;
+    }
+
+    private static LocationUpdateDTO update(double latitude, double longitude, Double heading,
+            LocalDateTime timestamp) {
+        return LocationUpdateDTO.builder()
+                .driverId(1L)
+                .latitude(latitude)
+                .longitude(longitude)
+                .heading(heading)
+                .timestamp(timestamp)
+                .build();
+    }
+}
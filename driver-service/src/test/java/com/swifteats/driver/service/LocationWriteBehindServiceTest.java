@@ -0,0 +1,93 @@
+package com.swifteats.driver.service;
+
+import com.swifteats.driver.model.Driver;
+import com.swifteats.driver.model.DriverStatus;
+import com.swifteats.driver.model.LocationSample;
+import com.swifteats.driver.repository.DriverLocationBatchRepository;
+import com.swifteats.driver.repository.DriverRepository;
+import com.swifteats.driver.storage.LocationSegmentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import(DriverLocationBatchRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LocationWriteBehindServiceTest {
+
+    private static final long UNKNOWN_DRIVER_ID = 999_999L;
+
+    @Autowired
+    private DriverLocationBatchRepository batchRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Driver driver;
+
+    @BeforeEach
+    void setUp() {
+        driver = driverRepository.save(Driver.builder()
+                .name("John Doe")
+                .email("john.doe@example.com")
+                .phone("555-1234")
+                .vehicleType("CAR")
+                .vehiclePlate("ABC123")
+                .status(DriverStatus.AVAILABLE)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM driver_locations");
+        driverRepository.deleteAll();
+    }
+
+    @Test
+    void enqueueAll_overflowingInsideReadOnlyTransaction_shouldStillPersistPoints() {
+        // Arrange: a buffer of one, already full, and no flusher running
+        LocationSegmentStore segmentStore = mock(LocationSegmentStore.class);
+        LocationWriteBehindService service = new LocationWriteBehindService(batchRepository, segmentStore,
+                transactionManager, new SimpleMeterRegistry(), 1, 10, 500, 0);
+        service.enqueue(sample(driver.getId()));
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // Act: the unknown driver fails the batch, forcing the row-by-row retry as well
+        assertDoesNotThrow(() -> readOnly.executeWithoutResult(status ->
+                service.enqueueAll(List.of(sample(driver.getId()), sample(UNKNOWN_DRIVER_ID)))));
+
+        // Assert
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM driver_locations WHERE driver_id = ?", Integer.class, driver.getId()));
+        assertEquals(1, service.getQueueDepth());
+    }
+
+    private static LocationSample sample(long driverId) {
+        return new LocationSample(driverId, 37.7749, -122.4194, 90.0, 30.0, 5.0, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,239 @@
+package com.swifteats.driver.spatial;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverSpatialIndexTest {
+
+    private static final double ORIGIN_LAT = 37.7749;
+    private static final double ORIGIN_LNG = -122.4194;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private DriverSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new DriverSpatialIndex(0.01, 120, now::get);
+    }
+
+    @Test
+    void findAvailableNearby_shouldReturnOnlyDriversInsideRadius() {
+        // Arrange
+        index.updateLocation(1L, ORIGIN_LAT, ORIGIN_LNG, true, 1000L);
+        index.updateLocation(2L, ORIGIN_LAT + 0.005, ORIGIN_LNG, true, 1000L); // ~560m north
+        index.updateLocation(3L, ORIGIN_LAT + 0.05, ORIGIN_LNG, true, 1000L); // ~5.6km north
+
+        // Act
+        List<NearbyDriver> result = index.findAvailableNearby(ORIGIN_LAT, ORIGIN_LNG, 1000);
+
+        // Assert
+        assertEquals(Set.of(1L, 2L), driverIds(result));
+        NearbyDriver origin = result.stream().filter(hit -> hit.driverId() == 1L).findFirst().orElseThrow();
+        assertEquals(0.0, origin.distanceMeters(), 0.001);
+        assertEquals(1000L, origin.timestampMillis());
+    }
+
+    @Test
+    void findAvailableNearby_shouldSkipUnavailableDrivers() {
+        // Arrange
+        index.updateLocation(1L, ORIGIN_LAT, ORIGIN_LNG, true, 1000L);
+        index.updateLocation(2L, ORIGIN_LAT, ORIGIN_LNG, false, 1000L);
+
+        // Act
+        index.updateAvailability(1L, false);
+        index.updateAvailability(2L, true);
+
+        // Assert
+        assertEquals(Set.of(2L), driverIds(index.findAvailableNearby(ORIGIN_LAT, ORIGIN_LNG, 100)));
+    }
+
+    @Test
+    void findNearestAvailable_shouldReturnClosestDriversSortedByDistance() {
+        // Arrange
+        index.updateLocation(1L, ORIGIN_LAT + 0.03, ORIGIN_LNG, true, 1000L); // ~3.3km
+        index.updateLocation(2L, ORIGIN_LAT + 0.001, ORIGIN_LNG, true, 1000L); // ~110m
+        index.updateLocation(3L, ORIGIN_LAT, ORIGIN_LNG + 0.015, true, 1000L); // ~1.3km
+        index.updateLocation(4L, ORIGIN_LAT, ORIGIN_LNG, false, 1000L);
+        index.updateLocation(5L, ORIGIN_LAT - 0.2, ORIGIN_LNG, true, 1000L); // ~22km
+
+        // Act
+        List<NearbyDriver> result = index.findNearestAvailable(ORIGIN_LAT, ORIGIN_LNG, 2, 50000);
+
+        // Assert
+        assertEquals(List.of(2L, 3L), result.stream().map(NearbyDriver::driverId).toList());
+        assertTrue(result.get(0).distanceMeters() < result.get(1).distanceMeters());
+    }
+
+    @Test
+    void findNearestAvailable_shouldMatchBruteForceOnRandomDrivers() {
+        // Arrange
+        Random random = new Random(42);
+        for (long id = 1; id <= 2000; id++) {
+            index.updateLocation(id, ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.4,
+                    ORIGIN_LNG + (random.nextDouble() - 0.5) * 0.4, random.nextInt(4) != 0, 1000L);
+        }
+
+        for (int query = 0; query < 50; query++) {
+            double latitude = ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.4;
+            double longitude = ORIGIN_LNG + (random.nextDouble() - 0.5) * 0.4;
+
+            // Act
+            List<NearbyDriver> nearest = index.findNearestAvailable(latitude, longitude, 10, 50000);
+
+            // Assert
+            List<Long> expected = index.findAvailableNearby(latitude, longitude, 50000).stream()
+                    .sorted(Comparator.comparingDouble(NearbyDriver::distanceMeters))
+                    .limit(10)
+                    .map(NearbyDriver::driverId)
+                    .toList();
+            assertEquals(expected, nearest.stream().map(NearbyDriver::driverId).toList());
+        }
+    }
+
+    @Test
+    void findNearestAvailable_shouldRespectMaxRadius() {
+        // Arrange
+        index.updateLocation(1L, ORIGIN_LAT + 0.05, ORIGIN_LNG, true, 1000L); // ~5.6km
+
+        // Act & Assert
+        assertTrue(index.findNearestAvailable(ORIGIN_LAT, ORIGIN_LNG, 5, 1000).isEmpty());
+        assertEquals(1, index.findNearestAvailable(ORIGIN_LAT, ORIGIN_LNG, 5, 10000).size());
+    }
+
+    @Test
+    void search_withHugeRadius_shouldFinishAndReturnEveryAvailableDriver() {
+        // Arrange
+        index.updateLocation(1L, ORIGIN_LAT, ORIGIN_LNG, true, 1000L);
+        index.updateLocation(2L, -ORIGIN_LAT, -ORIGIN_LNG, true, 1000L);
+
+        // Act / Assert: radii whose cell bounds overflow an int must not wrap the grid loops
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (double radius : new double[] {1e13, Double.POSITIVE_INFINITY}) {
+                assertEquals(Set.of(1L, 2L), driverIds(index.findAvailableNearby(ORIGIN_LAT, ORIGIN_LNG, radius)));
+                assertEquals(Set.of(1L, 2L), driverIds(index.findNearestAvailable(ORIGIN_LAT, ORIGIN_LNG, 5, radius)));
+            }
+            assertTrue(index.findAvailableNearby(ORIGIN_LAT, ORIGIN_LNG, Double.NaN).isEmpty());
+        });
+    }
+
+    @Test
+    void updateLocation_shouldMoveDriverBetweenCells() {
+        // Arrange
+        index.updateLocation(1L, ORIGIN_LAT, ORIGIN_LNG, true, 1000L);
+        index.updateLocation(2L, ORIGIN_LAT, ORIGIN_LNG, true, 1000L);
+
+        // Act
+        index.updateLocation(1L, ORIGIN_LAT + 0.1, ORIGIN_LNG + 0.1, true, 2000L);
+
+        // Assert
+        assertEquals(Set.of(2L), driverIds(index.findAvailableNearby(ORIGIN_LAT, ORIGIN_LNG, 500)));
+        assertEquals(Set.of(1L), driverIds(index.findAvailableNearby(ORIGIN_LAT + 0.1, ORIGIN_LNG + 0.1, 500)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void remove_shouldKeepRemainingDriversSearchable() {
+        // Arrange
+        for (long id = 1; id <= 20; id++) {
+            index.updateLocation(id, ORIGIN_LAT + id * 0.001, ORIGIN_LNG, true, 1000L);
+        }
+
+        // Act
+        index.remove(1L);
+        index.remove(7L);
+
+        // Assert
+        assertFalse(index.contains(1L));
+        assertFalse(index.contains(7L));
+        assertEquals(18, index.size());
+        Set<Long> found = driverIds(index.findAvailableNearby(ORIGIN_LAT, ORIGIN_LNG, 50000));
+        assertEquals(18, found.size());
+        assertFalse(found.contains(7L));
+    }
+
+    @Test
+    void evictStale_shouldRemoveOnlyDriversWithoutRecentLocation() {
+        // Arrange
+        for (long driverId = 1; driverId <= 4; driverId++) {
+            index.updateLocation(driverId, ORIGIN_LAT, ORIGIN_LNG, true, driverId % 2 == 0 ? 870_000L : 990_000L);
+        }
+
+        // Act
+        index.evictStale();
+
+        // Assert
+        assertEquals(2, index.size());
+        assertFalse(index.contains(2L));
+        assertFalse(index.contains(4L));
+        assertEquals(Set.of(1L, 3L), driverIds(index.findAvailableNearby(ORIGIN_LAT, ORIGIN_LNG, 100)));
+        assertEquals(2, index.availableDensity(ORIGIN_LAT - 0.1, ORIGIN_LNG - 0.1, ORIGIN_LAT + 0.1,
+                ORIGIN_LNG + 0.1, 1).counts()[0]);
+    }
+
+    @Test
+    void updateAvailability_shouldIgnoreDriversWithoutLocation() {
+        // Act
+        index.updateAvailability(42L, true);
+
+        // Assert
+        assertFalse(index.contains(42L));
+        assertTrue(index.findAvailableNearby(ORIGIN_LAT, ORIGIN_LNG, 50000).isEmpty());
+    }
+
+    private static Set<Long> driverIds(List<NearbyDriver> hits) {
+        return hits.stream().map(NearbyDriver::driverId).collect(Collectors.toSet());
+    }
+
+    @Test
+    void availableDensity_shouldTrackMovesAndStatusChanges() {
+        // Arrange: two available drivers in one cell, one busy driver next to them
+        index.updateLocation(1L, 37.775, -122.415, true, 1000L);
+        index.updateLocation(2L, 37.776, -122.416, true, 1000L);
+        index.updateLocation(3L, 37.775, -122.405, false, 1000L);
+
+        // Act
+        index.updateLocation(2L, 37.775, -122.405, true, 2000L); // moves into the busy driver's cell
+        index.updateAvailability(3L, true);
+        index.updateAvailability(1L, false);
+        index.remove(1L);
+
+        // Assert
+        SupplyDensity density = index.availableDensity(37.7, -122.5, 37.8, -122.3, 1);
+        assertArrayEquals(new int[] {2}, density.counts());
+        assertEquals(37.775, density.latitudes()[0], 1e-9);
+        assertEquals(-122.405, density.longitudes()[0], 1e-9);
+    }
+
+    @Test
+    void availableDensity_shouldAggregateCellsIntoBlocksInsideBox() {
+        // Arrange
+        Random random = new Random(7);
+        for (long id = 1; id <= 200; id++) {
+            index.updateLocation(id, 37.70 + random.nextDouble() * 0.2, -122.50 + random.nextDouble() * 0.2,
+                    id % 4 != 0, 1000L);
+        }
+
+        // Act
+        SupplyDensity fine = index.availableDensity(37.60, -122.60, 38.00, -122.20, 1);
+        SupplyDensity coarse = index.availableDensity(37.60, -122.60, 38.00, -122.20, 5);
+        SupplyDensity outside = index.availableDensity(10, 10, 11, 11, 1);
+
+        // Assert
+        assertEquals(150, Arrays.stream(fine.counts()).sum());
+        assertEquals(150, Arrays.stream(coarse.counts()).sum());
+        assertTrue(coarse.counts().length < fine.counts().length);
+        assertEquals(0.05, coarse.blockSizeDegrees(), 1e-9);
+        assertEquals(0, outside.counts().length);
+    }
+}
@@ -0,0 +1,89 @@
+package com.swifteats.driver.spatial;
+
+import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.dto.LocationHistorySamplingDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationTrackSamplerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 8, 13, 10, 0, 0);
+
+    @Test
+    void intervalSampling_shouldKeepOnePointPerBucket() {
+        // Arrange: one point every 500ms for 60 seconds
+        LocationTrackSampler sampler = new LocationTrackSampler(LocationHistorySamplingDTO.builder()
+                .intervalSeconds(10)
+                .build());
+
+        // Act
+        for (int i = 0; i < 120; i++) {
+            sampler.accept(point(37.77 + i * 0.0001, -122.41, START.plusNanos(i * 500_000_000L)));
+        }
+        List<LocationDTO> result = sampler.finish();
+
+        // Assert: 6 buckets plus the final point of the track
+        assertEquals(7, result.size());
+        assertEquals(START, result.get(0).getTimestamp());
+        assertEquals(START.plusSeconds(10), result.get(1).getTimestamp());
+        assertEquals(START.plusNanos(119 * 500_000_000L), result.get(6).getTimestamp());
+    }
+
+    @Test
+    void toleranceSimplification_shouldCollapseStraightSegments() {
+        // Arrange: north for 100 points, then east for 100 points
+        LocationTrackSampler sampler = new LocationTrackSampler(LocationHistorySamplingDTO.builder()
+                .toleranceMeters(5.0)
+                .build());
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            sampler.accept(point(37.77 + i * 0.0001, -122.41, START.plusSeconds(i)));
+        }
+        for (int i = 1; i <= 100; i++) {
+            sampler.accept(point(37.77 + 99 * 0.0001, -122.41 + i * 0.0001, START.plusSeconds(99 + i)));
+        }
+        List<LocationDTO> result = sampler.finish();
+
+        // Assert: start, corner and end
+        assertEquals(3, result.size());
+        assertEquals(START, result.get(0).getTimestamp());
+        assertEquals(START.plusSeconds(99), result.get(1).getTimestamp());
+        assertEquals(START.plusSeconds(199), result.get(2).getTimestamp());
+    }
+
+    @Test
+    void maxPoints_shouldCapOutputAndKeepLastPoint() {
+        // Arrange
+        LocationTrackSampler sampler = new LocationTrackSampler(LocationHistorySamplingDTO.builder()
+                .maxPoints(50)
+                .build());
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            sampler.accept(point(37.77 + i * 0.0001, -122.41, START.plusSeconds(i)));
+        }
+        List<LocationDTO> result = sampler.finish();
+
+        // Assert
+        assertTrue(result.size() <= 50, "Expected at most 50 points but got " + result.size());
+        assertTrue(result.size() >= 25, "Expected at least 25 points but got " + result.size());
+        assertEquals(START, result.get(0).getTimestamp());
+        assertEquals(START.plusSeconds(999), result.get(result.size() - 1).getTimestamp());
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i).getTimestamp().isAfter(result.get(i - 1).getTimestamp()));
+        }
+    }
+
+    private static LocationDTO point(double latitude, double longitude, LocalDateTime timestamp) {
+        return LocationDTO.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.swifteats.driver.spatial;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.swifteats.driver.spatial.RedisGeoNearbyDriverSearch.AVAILABLE_DRIVERS_GEO_KEY;
+import static com.swifteats.driver.spatial.RedisGeoNearbyDriverSearch.LAST_SEEN_KEY;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Lua scripts of the shared geo set against a local Redis, with two
+ * search instances standing in for two replicas.
+ */
+class RedisGeoNearbyDriverSearchIntegrationTest {
+
+    private static final double ORIGIN_LAT = 37.7749;
+    private static final double ORIGIN_LNG = -122.4194;
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private RedisGeoNearbyDriverSearch replicaA;
+    private RedisGeoNearbyDriverSearch replicaB;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+        replicaA = new RedisGeoNearbyDriverSearch(redisTemplate, 50, 120, now::get);
+        replicaB = new RedisGeoNearbyDriverSearch(redisTemplate, 50, 120, now::get);
+    }
+
+    @Test
+    void updateLocation_withStaleAvailability_shouldNotReAddDriverMadeBusyElsewhere() {
+        // Arrange
+        replicaA.updateLocation(7L, ORIGIN_LAT, ORIGIN_LNG, true, now.get());
+        assertEquals(Set.of(7L), nearbyDriverIds(replicaB));
+
+        // Act: A marks the driver busy, then B ingests a point still believing it available
+        replicaA.updateAvailability(7L, false);
+        replicaB.updateLocation(7L, ORIGIN_LAT, ORIGIN_LNG, true, now.get());
+
+        // Assert
+        assertTrue(nearbyDriverIds(replicaA).isEmpty());
+        assertNull(redisTemplate.opsForZSet().score(LAST_SEEN_KEY, "7"));
+
+        // Act: once available again, the shared status wins over B's stale busy view
+        replicaA.updateAvailability(7L, true);
+        replicaB.updateLocation(7L, ORIGIN_LAT, ORIGIN_LNG, false, now.get());
+
+        // Assert
+        assertEquals(Set.of(7L), nearbyDriverIds(replicaA));
+    }
+
+    @Test
+    void updateLocation_withoutSharedStatus_shouldFallBackToCallersAvailability() {
+        // Act
+        replicaA.updateLocation(7L, ORIGIN_LAT, ORIGIN_LNG, true, now.get());
+        replicaA.updateLocation(8L, ORIGIN_LAT, ORIGIN_LNG, false, now.get());
+
+        // Assert
+        assertEquals(Set.of(7L), nearbyDriverIds(replicaB));
+    }
+
+    @Test
+    void evictStale_shouldRemoveEveryDriverPastTheCutoffInBatches() {
+        // Arrange: more stale drivers than one eviction batch, and one recent driver
+        for (long driverId = 1; driverId <= 1200; driverId++) {
+            replicaA.updateLocation(driverId, ORIGIN_LAT, ORIGIN_LNG, true, now.get());
+        }
+        now.addAndGet(100_000);
+        replicaB.updateLocation(5000L, ORIGIN_LAT, ORIGIN_LNG, true, now.get());
+
+        // Act
+        now.addAndGet(30_000);
+        replicaB.evictStale();
+
+        // Assert
+        assertEquals(1L, redisTemplate.opsForZSet().zCard(AVAILABLE_DRIVERS_GEO_KEY));
+        assertEquals(1L, redisTemplate.opsForZSet().zCard(LAST_SEEN_KEY));
+        assertEquals(Set.of(5000L), nearbyDriverIds(replicaA));
+    }
+
+    private static Set<Long> nearbyDriverIds(RedisGeoNearbyDriverSearch search) {
+        List<NearbyDriver> hits = search.findAvailableNearby(ORIGIN_LAT, ORIGIN_LNG, 1000);
+        return hits.stream().map(NearbyDriver::driverId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,128 @@
+package com.swifteats.driver.spatial;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.GeoOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.domain.geo.GeoReference;
+
+import java.util.List;
+
+import static com.swifteats.driver.spatial.RedisGeoNearbyDriverSearch.AVAILABLE_DRIVERS_GEO_KEY;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisGeoNearbyDriverSearchTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private GeoOperations<String, String> geoOperations;
+
+    private RedisGeoNearbyDriverSearch search;
+
+    @BeforeEach
+    void setUp() {
+        search = new RedisGeoNearbyDriverSearch(redisTemplate, 50, 120, () -> 1_000_000L);
+    }
+
+    @Test
+    void updateLocation_shouldAddThroughSharedAvailabilityScript() {
+        // Act
+        search.updateLocation(7L, 37.7749, -122.4194, true, 1000L);
+
+        // Assert: the script decides from the shared status, the local one is only a fallback
+        verify(redisTemplate).execute(RedisGeoNearbyDriverSearch.UPDATE_LOCATION_SCRIPT,
+                RedisGeoNearbyDriverSearch.KEYS, "7", "-122.4194", "37.7749", "1", "1000000");
+        verifyNoInteractions(geoOperations);
+    }
+
+    @Test
+    void updateAvailability_shouldRecordSharedStatus() {
+        // Act
+        search.updateAvailability(7L, true);
+        search.updateAvailability(8L, false);
+
+        // Assert
+        verify(redisTemplate).execute(RedisGeoNearbyDriverSearch.UPDATE_AVAILABILITY_SCRIPT,
+                RedisGeoNearbyDriverSearch.KEYS, "7", "1");
+        verify(redisTemplate).execute(RedisGeoNearbyDriverSearch.UPDATE_AVAILABILITY_SCRIPT,
+                RedisGeoNearbyDriverSearch.KEYS, "8", "0");
+    }
+
+    @Test
+    void evictStale_shouldRemoveInBatchesUntilNoneLeft() {
+        // Arrange
+        when(redisTemplate.execute(RedisGeoNearbyDriverSearch.EVICT_STALE_SCRIPT, RedisGeoNearbyDriverSearch.KEYS,
+                "880000", "1000")).thenReturn(1000L, 3L);
+
+        // Act
+        search.evictStale();
+
+        // Assert
+        verify(redisTemplate, times(2)).execute(RedisGeoNearbyDriverSearch.EVICT_STALE_SCRIPT,
+                RedisGeoNearbyDriverSearch.KEYS, "880000", "1000");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findAvailableNearby_shouldMapGeoSearchResults() {
+        // Arrange
+        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
+        GeoResults<RedisGeoCommands.GeoLocation<String>> results = new GeoResults<>(List.of(
+                new GeoResult<>(new RedisGeoCommands.GeoLocation<>("3", new Point(-122.4194, 37.7749)),
+                        new Distance(12.5, RedisGeoCommands.DistanceUnit.METERS)),
+                new GeoResult<>(new RedisGeoCommands.GeoLocation<>("9", new Point(-122.4200, 37.7760)),
+                        new Distance(130.0, RedisGeoCommands.DistanceUnit.METERS))));
+        when(geoOperations.search(eq(AVAILABLE_DRIVERS_GEO_KEY), any(GeoReference.class), any(Distance.class),
+                any(RedisGeoCommands.GeoSearchCommandArgs.class))).thenReturn(results);
+
+        // Act
+        List<NearbyDriver> nearby = search.findAvailableNearby(37.7749, -122.4194, 500);
+
+        // Assert
+        assertEquals(2, nearby.size());
+        assertEquals(3L, nearby.get(0).driverId());
+        assertEquals(37.7749, nearby.get(0).latitude(), 1e-9);
+        assertEquals(-122.4194, nearby.get(0).longitude(), 1e-9);
+        assertEquals(12.5, nearby.get(0).distanceMeters(), 1e-9);
+        assertEquals(9L, nearby.get(1).driverId());
+
+        ArgumentCaptor<Distance> radius = ArgumentCaptor.forClass(Distance.class);
+        ArgumentCaptor<RedisGeoCommands.GeoSearchCommandArgs> args =
+                ArgumentCaptor.forClass(RedisGeoCommands.GeoSearchCommandArgs.class);
+        verify(geoOperations).search(eq(AVAILABLE_DRIVERS_GEO_KEY), any(GeoReference.class), radius.capture(),
+                args.capture());
+        assertEquals(500.0, radius.getValue().getValue(), 1e-9);
+        assertEquals(50L, args.getValue().getLimit());
+        assertTrue(args.getValue().hasSortDirection());
+    }
+
+    @Test
+    void findAvailableNearby_withWidenedRadius_shouldRaiseLimitByExtraArea() {
+        // Arrange
+        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
+
+        // Act: twice the radius covers four times the area
+        search.findAvailableNearby(37.7749, -122.4194, 1000, 500);
+
+        // Assert
+        ArgumentCaptor<RedisGeoCommands.GeoSearchCommandArgs> args =
+                ArgumentCaptor.forClass(RedisGeoCommands.GeoSearchCommandArgs.class);
+        verify(geoOperations).search(eq(AVAILABLE_DRIVERS_GEO_KEY), any(GeoReference.class), any(Distance.class),
+                args.capture());
+        assertEquals(200L, args.getValue().getLimit());
+    }
+}
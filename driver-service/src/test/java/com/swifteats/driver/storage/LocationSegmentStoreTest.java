@@ -0,0 +1,83 @@
+package com.swifteats.driver.storage;
+
+import com.swifteats.driver.model.LocationSample;
+import com.swifteats.driver.model.LocationSegmentBlock;
+import com.swifteats.driver.repository.DriverLocationSegmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LocationSegmentStoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 8, 13, 10, 0, 0);
+
+    @Mock
+    private DriverLocationSegmentRepository segmentRepository;
+
+    private final AtomicLong clock = new AtomicLong();
+    private LocationSegmentStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocationSegmentStore(segmentRepository, new SimpleMeterRegistry(), true, 15, 60, 100,
+                clock::get);
+    }
+
+    @Test
+    void flush_shouldAppendOneBlockPerSegmentOnceBufferIsOld() {
+        // Arrange: points on both sides of the 10:15 segment boundary
+        store.append(List.of(sample(START.plusMinutes(14)), sample(START.plusMinutes(15)),
+                sample(START.plusMinutes(16))));
+
+        // Act
+        store.flush();
+        verifyNoInteractions(segmentRepository);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        store.flush();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LocationSegmentBlock>> captor = ArgumentCaptor.forClass(List.class);
+        verify(segmentRepository).appendAll(captor.capture());
+        List<LocationSegmentBlock> blocks = captor.getValue();
+        assertEquals(List.of(START, START.plusMinutes(15)),
+                blocks.stream().map(LocationSegmentBlock::segmentStart).toList());
+        assertEquals(List.of(1, 2), blocks.stream().map(LocationSegmentBlock::pointCount).toList());
+        assertEquals(2, LocationTrackCodec.decode(1L, blocks.get(1).data()).size());
+    }
+
+    @Test
+    void findHistory_shouldMergeStoredAndBufferedPointsInRange() {
+        // Arrange
+        byte[] stored = LocationTrackCodec.encode(List.of(sample(START.plusMinutes(1)),
+                sample(START.plusMinutes(5))));
+        when(segmentRepository.findSegments(eq(1L), eq(START), any(), anyInt()))
+                .thenReturn(List.of(new LocationSegmentBlock(1L, START, 2, stored)));
+        store.append(List.of(sample(START.plusMinutes(3)), sample(START.plusMinutes(20))));
+
+        // Act
+        List<LocationSample> history = store.findHistory(1L, START.plusMinutes(2), null);
+
+        // Assert
+        assertEquals(List.of(START.plusMinutes(3), START.plusMinutes(5), START.plusMinutes(20)),
+                history.stream().map(LocationSample::timestamp).toList());
+    }
+
+    private static LocationSample sample(LocalDateTime timestamp) {
+        return new LocationSample(1L, 37.7749, -122.4194, null, 30.0, null, timestamp);
+    }
+}
@@ -0,0 +1,89 @@
+package com.swifteats.driver.storage;
+
+import com.swifteats.driver.model.LocationSample;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationTrackCodecTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 8, 13, 10, 0, 0);
+
+    @Test
+    void decode_shouldRestorePointsWithFixedPointPrecision() {
+        // Arrange
+        List<LocationSample> samples = List.of(
+                new LocationSample(7L, 37.7749123, -122.4194456, 90.0, 32.5, 4.0, START.plusNanos(123_456_789)),
+                new LocationSample(7L, 37.7751, -122.4190, null, null, null, START.plusSeconds(4)),
+                new LocationSample(7L, -33.8688, 151.2093, 359.9, 0.0, 12.3, START.plusSeconds(5)));
+
+        // Act
+        List<LocationSample> decoded = LocationTrackCodec.decode(7L, LocationTrackCodec.encode(samples));
+
+        // Assert
+        assertEquals(3, decoded.size());
+        for (int i = 0; i < samples.size(); i++) {
+            assertEquals(samples.get(i).latitude(), decoded.get(i).latitude(), 1e-6);
+            assertEquals(samples.get(i).longitude(), decoded.get(i).longitude(), 1e-6);
+        }
+        assertEquals(START.plusNanos(123_000_000), decoded.get(0).timestamp());
+        assertEquals(90.0, decoded.get(0).heading());
+        assertEquals(32.5, decoded.get(0).speed());
+        assertNull(decoded.get(1).heading());
+        assertNull(decoded.get(1).accuracy());
+        assertEquals(359.9, decoded.get(2).heading(), 1e-9);
+        assertEquals(12.3, decoded.get(2).accuracy(), 1e-9);
+        assertEquals(7L, decoded.get(2).driverId());
+    }
+
+    @Test
+    void decode_shouldReadConcatenatedBlocks() {
+        // Arrange
+        byte[] first = LocationTrackCodec.encode(List.of(sample(0, 0)));
+        byte[] second = LocationTrackCodec.encode(List.of(sample(1, 10), sample(2, 20)));
+        byte[] track = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, track, first.length, second.length);
+
+        // Act
+        List<LocationSample> decoded = LocationTrackCodec.decode(1L, track);
+
+        // Assert
+        assertEquals(List.of(START, START.plusSeconds(4), START.plusSeconds(8)),
+                decoded.stream().map(LocationSample::timestamp).toList());
+    }
+
+    @Test
+    void encode_shouldTakeAboutTenBytesPerPointOfADrivingTrack() {
+        // Arrange: a point every 4s moving ~40m, with speed, heading and accuracy
+        List<LocationSample> samples = new ArrayList<>();
+        for (int i = 0; i < 225; i++) {
+            samples.add(sample(i, i * 40));
+        }
+
+        // Act
+        byte[] encoded = LocationTrackCodec.encode(samples);
+
+        // Assert
+        assertTrue(encoded.length < samples.size() * 12, "encoded size " + encoded.length);
+    }
+
+    @Test
+    void decode_shouldRejectTruncatedData() {
+        // Arrange
+        byte[] encoded = LocationTrackCodec.encode(List.of(sample(0, 0), sample(1, 40)));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> LocationTrackCodec.decode(1L, Arrays.copyOf(encoded, encoded.length - 2)));
+    }
+
+    private static LocationSample sample(int index, double metersNorth) {
+        return new LocationSample(1L, 37.7749 + metersNorth / 111_320, -122.4194 + index * 1e-5,
+                (double) (index % 360), 36.0 + index % 5, 5.0, START.plusSeconds(4L * index));
+    }
+}
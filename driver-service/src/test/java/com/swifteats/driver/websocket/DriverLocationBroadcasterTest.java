@@ -0,0 +1,135 @@
+package com.swifteats.driver.websocket;
+
+import com.swifteats.driver.dto.LocationDTO;
+import com.swifteats.driver.dto.TileUpdateDTO;
+import com.swifteats.driver.prediction.MotionPredictor;
+import com.swifteats.driver.spatial.TileCoordinates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DriverLocationBroadcasterTest {
+
+    private static final TileCoordinates TILE = TileCoordinates.of(37.7749, -122.4194, 14);
+    private static final TileCoordinates OTHER_TILE = TileCoordinates.of(37.85, -122.4194, 14);
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private MotionPredictor motionPredictor;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private DriverLocationBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        StompSubscriptionTracker tracker = new StompSubscriptionTracker(new SimpleMeterRegistry(), false);
+        broadcaster = new DriverLocationBroadcaster(messagingTemplate, tracker, motionPredictor,
+                new SimpleMeterRegistry(), false, 60, now::get);
+        broadcaster.publish(location(7L), TILE);
+        broadcaster.flush();
+        clearInvocations(messagingTemplate);
+    }
+
+    @Test
+    void removeFromTiles_shouldSendLeftOnceAndForgetDriver() {
+        // Act
+        broadcaster.removeFromTiles(7L);
+        broadcaster.flush();
+        broadcaster.removeFromTiles(7L);
+        broadcaster.flush();
+
+        // Assert
+        TileUpdateDTO frame = sentTileFrame();
+        assertEquals(List.of(7L), frame.getLeft());
+        assertTrue(frame.getLocations().isEmpty());
+    }
+
+    @Test
+    void removeFromTiles_afterLocationInSameTick_shouldNotReAddDriver() {
+        // Act: a move to another tile, then the driver goes busy before the tick
+        broadcaster.publish(location(7L), OTHER_TILE);
+        broadcaster.removeFromTiles(7L);
+        broadcaster.flush();
+
+        // Assert
+        TileUpdateDTO frame = sentTileFrame();
+        assertEquals(List.of(7L), frame.getLeft());
+        assertTrue(frame.getEntered().isEmpty());
+        verify(messagingTemplate, never()).convertAndSend(eq(OTHER_TILE.topic()), any(Object.class));
+        verify(messagingTemplate).convertAndSend(eq(DriverLocationBroadcaster.driverLocationTopic(7L)),
+                any(LocationDTO.class));
+    }
+
+    @Test
+    void publish_withoutTile_shouldLeaveTileButStillSendDriverTopic() {
+        // Act
+        broadcaster.publish(location(7L), null);
+        broadcaster.flush();
+
+        // Assert
+        assertEquals(List.of(7L), sentTileFrame().getLeft());
+        verify(messagingTemplate).convertAndSend(eq(DriverLocationBroadcaster.driverLocationTopic(7L)),
+                any(LocationDTO.class));
+    }
+
+    @Test
+    void publish_extrapolatedPosition_shouldOnlyBeLeftOutOfTileFrame() {
+        // Arrange
+        when(motionPredictor.shouldBroadcast(eq(7L), anyDouble(), anyDouble(), any(), any())).thenReturn(false);
+
+        // Act
+        broadcaster.publish(location(7L), TILE);
+        broadcaster.flush();
+
+        // Assert
+        verify(messagingTemplate).convertAndSend(eq(DriverLocationBroadcaster.driverLocationTopic(7L)),
+                any(LocationDTO.class));
+        verify(messagingTemplate, never()).convertAndSend(eq(TILE.topic()), any(Object.class));
+    }
+
+    @Test
+    void removeStaleFromTiles_shouldOnlyRemoveSilentDrivers() {
+        // Arrange
+        now.addAndGet(30_000);
+        broadcaster.removeStaleFromTiles();
+        broadcaster.flush();
+        verifyNoInteractions(messagingTemplate);
+
+        // Act
+        now.addAndGet(31_000);
+        broadcaster.removeStaleFromTiles();
+        broadcaster.flush();
+
+        // Assert
+        assertEquals(List.of(7L), sentTileFrame().getLeft());
+    }
+
+    private TileUpdateDTO sentTileFrame() {
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq(TILE.topic()), frame.capture());
+        return (TileUpdateDTO) frame.getValue();
+    }
+
+    private static LocationDTO location(Long driverId) {
+        return LocationDTO.builder()
+                .driverId(driverId)
+                .latitude(37.7749)
+                .longitude(-122.4194)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.swifteats.driver.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StompSubscriptionTrackerTest {
+
+    private static final String DRIVER_TOPIC = "/topic/driver/1/location";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StompSubscriptionTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new StompSubscriptionTracker(meterRegistry, true);
+    }
+
+    @Test
+    void shouldSend_shouldFollowSubscribeAndUnsubscribe() {
+        // Arrange
+        subscribe("s1", "sub-0", DRIVER_TOPIC);
+        subscribe("s2", "sub-0", DRIVER_TOPIC);
+
+        // Act & Assert
+        assertTrue(tracker.shouldSend(DRIVER_TOPIC));
+        assertFalse(tracker.shouldSend("/topic/driver/2/location"));
+
+        unsubscribe("s1", "sub-0");
+        assertTrue(tracker.shouldSend(DRIVER_TOPIC));
+
+        unsubscribe("s2", "sub-0");
+        assertFalse(tracker.shouldSend(DRIVER_TOPIC));
+        assertEquals(2.0, meterRegistry.get("driver.websocket.sends.skipped").counter().count());
+    }
+
+    @Test
+    void onDisconnect_shouldDropAllSubscriptionsOfTheSession() {
+        // Arrange
+        subscribe("s1", "sub-0", DRIVER_TOPIC);
+        subscribe("s1", "sub-1", "/topic/tiles/14/2620/6332");
+
+        // Act
+        tracker.onDisconnect(new SessionDisconnectEvent(this,
+                frame(StompCommand.DISCONNECT, "s1", null, null), "s1", CloseStatus.NORMAL));
+
+        // Assert
+        assertFalse(tracker.hasSubscribers(DRIVER_TOPIC));
+        assertFalse(tracker.hasSubscribers("/topic/tiles/14/2620/6332"));
+    }
+
+    @Test
+    void hasSubscribers_shouldMatchPatternSubscriptions() {
+        // Arrange
+        subscribe("s1", "sub-0", "/topic/driver/*/location");
+
+        // Act & Assert
+        assertTrue(tracker.hasSubscribers(DRIVER_TOPIC));
+        assertFalse(tracker.hasSubscribers("/topic/driver/1/status"));
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        tracker.onSubscribe(new SessionSubscribeEvent(this,
+                frame(StompCommand.SUBSCRIBE, sessionId, subscriptionId, destination)));
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        tracker.onUnsubscribe(new SessionUnsubscribeEvent(this,
+                frame(StompCommand.UNSUBSCRIBE, sessionId, subscriptionId, null)));
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId,
+            String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        if (subscriptionId != null) {
+            accessor.setSubscriptionId(subscriptionId);
+        }
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
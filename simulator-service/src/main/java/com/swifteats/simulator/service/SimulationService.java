@@ -159,7 +159,7 @@ public class SimulationService {
         client.post()
                 .uri("/api/v1/drivers/location/batch")
                 .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(updates)
+                .bodyValue(Map.of("updates", updates))
                 .retrieve()
                 .toBodilessEntity()
                 .doOnSuccess(response -> log.info("Successfully sent batch of {} location updates", updates.size()))